@@ -0,0 +1,70 @@
+package com.example.slimming.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Dedicated executors for booking side effects, so a slow SMTP server and a slow
+ * TeleCRM API cannot starve each other (or the request threads).
+ * Declaring these makes Boot skip its own applicationTaskExecutor, so a bounded one is
+ * declared here under that name; Spring MVC runs async requests (StreamingResponseBody
+ * exports) on it instead of falling back to a thread per request.
+ * A full queue runs the task on the submitting thread rather than dropping it.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    public static final String BOOKING_EMAIL_EXECUTOR = "bookingEmailExecutor";
+    public static final String TELECRM_EXECUTOR = "teleCrmExecutor";
+
+    @Value("${app.booking.email-executor.pool-size:2}")
+    private int emailPoolSize;
+
+    @Value("${app.booking.telecrm-executor.pool-size:2}")
+    private int teleCrmPoolSize;
+
+    @Value("${app.booking.executor.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${app.async.executor.pool-size:8}")
+    private int applicationPoolSize;
+
+    @Value("${app.async.executor.queue-capacity:100}")
+    private int applicationQueueCapacity;
+
+    @Bean(name = BOOKING_EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor bookingEmailExecutor() {
+        return executor("booking-email-", emailPoolSize, queueCapacity);
+    }
+
+    @Bean(name = TELECRM_EXECUTOR)
+    public ThreadPoolTaskExecutor teleCrmExecutor() {
+        return executor("telecrm-", teleCrmPoolSize, queueCapacity);
+    }
+
+    // Also the default for unqualified @Async
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public ThreadPoolTaskExecutor applicationTaskExecutor() {
+        return executor("task-", applicationPoolSize, applicationQueueCapacity);
+    }
+
+    private ThreadPoolTaskExecutor executor(String threadNamePrefix, int poolSize, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        // Back-pressure instead of losing work: the caller (e.g. the request that committed a booking) runs it
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+}
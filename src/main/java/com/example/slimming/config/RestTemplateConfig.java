@@ -1,18 +1,82 @@
 package com.example.slimming.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+/**
+ * Shared outbound HTTP client for third-party integrations (TeleCRM, ...).
+ * Connections are pooled and kept alive per host, and every phase of a call is
+ * bounded: connect, waiting for a pooled connection, and reading the response.
+ * Pool usage is published as httpcomponents.httpclient.pool.* metrics.
+ */
 @Configuration
 public class RestTemplateConfig {
 
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
-}
+    @Value("${app.http.client.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${app.http.client.max-connections-per-host:10}")
+    private int maxConnectionsPerHost;
 
+    @Value("${app.http.client.connect-timeout-ms:3000}")
+    private long connectTimeoutMillis;
 
+    @Value("${app.http.client.read-timeout-ms:5000}")
+    private long readTimeoutMillis;
 
+    @Value("${app.http.client.pool-acquire-timeout-ms:1000}")
+    private long poolAcquireTimeoutMillis;
 
+    @Value("${app.http.client.idle-eviction-seconds:30}")
+    private long idleEvictionSeconds;
+
+    @Value("${app.http.client.connection-ttl-seconds:300}")
+    private long connectionTtlSeconds;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerHost)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                // Recycle long-lived connections so DNS changes on the remote side are picked up
+                .setTimeToLive(TimeValue.ofSeconds(connectionTtlSeconds))
+                .build())
+            .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "outbound").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return HttpClients.custom()
+            .setConnectionManager(httpConnectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeoutMillis))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                .build())
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+            .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+}
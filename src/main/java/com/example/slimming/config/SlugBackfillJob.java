@@ -0,0 +1,138 @@
+package com.example.slimming.config;
+
+import com.example.slimming.service.BlogCacheService;
+import com.example.slimming.service.SlugGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One-time migration that fills in missing blog slugs.
+ * Runs once the application is ready (unless disabled) and can be triggered on demand from
+ * the admin API. Slugs are written with batched JDBC updates so public reads stay read-only.
+ * A batch that fails (e.g. an admin saved the same slug in the meantime) is re-applied row by
+ * row, skipping the rows that still fail; they are picked up by the next run, and a failure
+ * never stops the application from starting.
+ */
+@Component
+public class SlugBackfillJob {
+
+    private static final int BATCH_SIZE = 100;
+    // Guard on the empty slug so a concurrent admin edit is never overwritten
+    private static final String UPDATE_SLUG =
+        "UPDATE blogs SET slug = ?, updated_at = ? WHERE id = ? AND (slug IS NULL OR slug = '')";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SlugGenerator slugGenerator;
+
+    @Autowired
+    private BlogCacheService blogCacheService;
+
+    @Value("${app.blog.slug-backfill.on-startup:true}")
+    private boolean runOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!runOnStartup) {
+            return;
+        }
+        try {
+            backfill();
+        } catch (Exception e) {
+            System.err.println("Slug backfill failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Generates and stores a unique slug for every blog that has none.
+     *
+     * @return number of blogs updated
+     */
+    public synchronized int backfill() {
+        List<Map.Entry<Long, String>> missing = jdbcTemplate.query(
+            "SELECT id, title FROM blogs WHERE slug IS NULL OR slug = '' ORDER BY id",
+            (rs, rowNum) -> Map.entry(rs.getLong("id"), rs.getString("title")));
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> taken = new HashSet<>(jdbcTemplate.queryForList(
+            "SELECT slug FROM blogs WHERE slug IS NOT NULL AND slug <> ''", String.class));
+
+        List<Object[]> updates = new ArrayList<>(missing.size());
+        for (Map.Entry<Long, String> blog : missing) {
+            String baseSlug = slugGenerator.generateSlug(blog.getValue());
+            if (baseSlug.isEmpty()) {
+                // Same fallback as BlogSlugService, so both produce "blog", "blog-1", ...
+                baseSlug = SlugGenerator.FALLBACK_SLUG;
+            }
+            String slug = baseSlug;
+            int counter = 1;
+            while (taken.contains(slug)) {
+                slug = baseSlug + "-" + counter;
+                counter++;
+            }
+            taken.add(slug);
+            updates.add(new Object[]{slug, blog.getKey()});
+        }
+
+        int updated = 0;
+        for (int from = 0; from < updates.size(); from += BATCH_SIZE) {
+            updated += apply(updates.subList(from, Math.min(from + BATCH_SIZE, updates.size())));
+        }
+
+        blogCacheService.refresh();
+        System.out.println("Backfilled slugs for " + updated + " of " + updates.size() + " blog(s)");
+        return updated;
+    }
+
+    /**
+     * Writes one batch of (slug, id) pairs, falling back to one row at a time if the batch fails.
+     *
+     * @return number of blogs updated
+     */
+    private int apply(List<Object[]> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = batch.stream().map(update -> new Object[]{update[0], now, update[1]}).toList();
+        try {
+            return count(jdbcTemplate.batchUpdate(UPDATE_SLUG, args));
+        } catch (DataAccessException e) {
+            System.err.println("Slug backfill batch failed, retrying row by row: " + e.getMessage());
+        }
+        int updated = 0;
+        for (Object[] row : args) {
+            try {
+                // Rows the failed batch already wrote no longer match the empty-slug guard
+                updated += jdbcTemplate.update(UPDATE_SLUG, row);
+            } catch (DataAccessException e) {
+                System.err.println("Skipping slug '" + row[0] + "' for blog " + row[2] + ": " + e.getMessage());
+            }
+        }
+        return updated;
+    }
+
+    private static int count(int[] updateCounts) {
+        int updated = 0;
+        for (int updateCount : updateCounts) {
+            // SUCCESS_NO_INFO: the driver ran the row but did not report a count
+            updated += updateCount == Statement.SUCCESS_NO_INFO ? 1 : Math.max(updateCount, 0);
+        }
+        return updated;
+    }
+}
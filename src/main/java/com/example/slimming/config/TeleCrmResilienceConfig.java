@@ -0,0 +1,91 @@
+package com.example.slimming.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker and bulkhead guarding TeleCRM calls.
+ * The breaker opens once the failure rate over the last sliding-window-size calls
+ * reaches the threshold, rejects calls while open, and probes again after wait-open-seconds.
+ * 4xx responses mean a bad lead, not an unhealthy TeleCRM, so they do not count as failures.
+ * State, call outcomes and bulkhead usage are published as resilience4j.* metrics;
+ * transitions are also counted in telecrm.circuit.transitions{from, to}.
+ */
+@Configuration
+public class TeleCrmResilienceConfig {
+
+    public static final String TELECRM = "telecrm";
+
+    @Value("${app.telecrm.circuit.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value("${app.telecrm.circuit.slow-call-threshold-ms:4000}")
+    private long slowCallThresholdMillis;
+
+    @Value("${app.telecrm.circuit.sliding-window-size:20}")
+    private int slidingWindowSize;
+
+    @Value("${app.telecrm.circuit.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${app.telecrm.circuit.wait-open-seconds:30}")
+    private long waitOpenSeconds;
+
+    @Value("${app.telecrm.circuit.half-open-calls:3}")
+    private int halfOpenCalls;
+
+    @Value("${app.telecrm.bulkhead.max-concurrent-calls:4}")
+    private int maxConcurrentCalls;
+
+    @Value("${app.telecrm.bulkhead.max-wait-ms:0}")
+    private long maxWaitMillis;
+
+    @Bean
+    public CircuitBreaker teleCrmCircuitBreaker(MeterRegistry meterRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+            .failureRateThreshold(failureRateThreshold)
+            .slowCallRateThreshold(100)
+            .slowCallDurationThreshold(Duration.ofMillis(slowCallThresholdMillis))
+            .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+            .slidingWindowSize(slidingWindowSize)
+            .minimumNumberOfCalls(minimumCalls)
+            .waitDurationInOpenState(Duration.ofSeconds(waitOpenSeconds))
+            .permittedNumberOfCallsInHalfOpenState(halfOpenCalls)
+            .ignoreExceptions(HttpClientErrorException.class)
+            .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        CircuitBreaker circuitBreaker = registry.circuitBreaker(TELECRM);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            System.out.println("TeleCRM circuit breaker: " + event.getStateTransition());
+            meterRegistry.counter("telecrm.circuit.transitions",
+                "from", event.getStateTransition().getFromState().name(),
+                "to", event.getStateTransition().getToState().name()).increment();
+        });
+        return circuitBreaker;
+    }
+
+    @Bean
+    public Bulkhead teleCrmBulkhead(MeterRegistry meterRegistry) {
+        BulkheadConfig config = BulkheadConfig.custom()
+            .maxConcurrentCalls(maxConcurrentCalls)
+            .maxWaitDuration(Duration.ofMillis(maxWaitMillis))
+            .build();
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(TELECRM);
+    }
+}
@@ -1,13 +1,20 @@
 package com.example.slimming.controller;
 
 import com.example.slimming.entity.Admin;
+import com.example.slimming.dto.MailTransportStats;
 import com.example.slimming.repository.AdminRepository;
+import com.example.slimming.service.CrmLeadQueue;
+import com.example.slimming.service.CrmReconciliationService;
+import com.example.slimming.service.EmailOutboxService;
+import com.example.slimming.service.MailBatchSender;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/admin")
 @CrossOrigin(origins = {"https://sashaslimming.com", "https://www.sashaslimming.com", "http://localhost:3000", "http://localhost:3001", "http://localhost:5173"})
@@ -16,6 +23,18 @@ public class AdminController {
     @Autowired
     private AdminRepository adminRepository;
 
+    @Autowired
+    private MailBatchSender mailBatchSender;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private CrmLeadQueue crmLeadQueue;
+
+    @Autowired
+    private CrmReconciliationService crmReconciliationService;
+
     @GetMapping("/profile")
     public ResponseEntity<?> getProfile() {
         try {
@@ -51,5 +70,29 @@ public class AdminController {
                 .body("{\"error\":\"Failed to fetch profile: " + e.getMessage() + "\"}");
         }
     }
-}
 
+    @GetMapping("/mail/stats")
+    public ResponseEntity<MailTransportStats> getMailStats() {
+        return ResponseEntity.ok(mailBatchSender.getStats());
+    }
+
+    @GetMapping("/mail/outbox")
+    public ResponseEntity<Map<String, Long>> getOutboxDepth() {
+        return ResponseEntity.ok(emailOutboxService.getQueueDepth());
+    }
+
+    @GetMapping("/crm/queue")
+    public ResponseEntity<Map<String, Long>> getCrmQueueDepth() {
+        return ResponseEntity.ok(crmLeadQueue.getQueueDepth());
+    }
+
+    // Runs a reconciliation pass now instead of waiting for the schedule
+    @PostMapping("/crm/reconcile")
+    public ResponseEntity<Map<String, Integer>> reconcileCrm() {
+        Map<String, Integer> outcomes = crmReconciliationService.reconcile();
+        if (outcomes.isEmpty()) {
+            return ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.ok(outcomes);
+    }
+}
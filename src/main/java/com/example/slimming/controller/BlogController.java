@@ -1,20 +1,36 @@
 package com.example.slimming.controller;
 
+import com.example.slimming.config.SlugBackfillJob;
+import com.example.slimming.dto.BlogSummary;
+import com.example.slimming.dto.CursorPage;
+import com.example.slimming.dto.KeysetCursor;
+import com.example.slimming.dto.NotificationJobStatus;
 import com.example.slimming.entity.Blog;
 import com.example.slimming.enums.BlogStatus;
 import com.example.slimming.repository.BlogRepository;
-import com.example.slimming.service.EmailService;
+import com.example.slimming.service.BlogCacheService;
+import com.example.slimming.service.BlogSearchService;
+import com.example.slimming.service.BlogSlugService;
+import com.example.slimming.service.PreSerializedResponse;
+import com.example.slimming.service.NewsletterFanoutService;
+import com.example.slimming.service.SlugGenerator;
 import com.example.slimming.service.CloudinaryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.text.Normalizer;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 
@@ -23,33 +39,68 @@ import java.nio.charset.StandardCharsets;
 @CrossOrigin(origins = {"https://sashaslimming.com", "https://www.sashaslimming.com", "http://localhost:3000", "http://localhost:3001", "http://localhost:5173"})
 public class BlogController {
 
+    public static final String NOTIFICATION_JOB_HEADER = "X-Notification-Job-Id";
+
     @Autowired
     private BlogRepository blogRepository;
 
     @Autowired
-    private EmailService emailService;
+    private NewsletterFanoutService newsletterFanoutService;
 
     @Autowired
     private CloudinaryService cloudinaryService;
 
+    @Autowired
+    private BlogCacheService blogCacheService;
+
+    @Autowired
+    private SlugGenerator slugGenerator;
+
+    @Autowired
+    private BlogSlugService blogSlugService;
+
+    @Autowired
+    private SlugBackfillJob slugBackfillJob;
+
+    @Autowired
+    private BlogSearchService blogSearchService;
+
+    @Value("${app.blog.http-cache.max-age-seconds:60}")
+    private long cacheMaxAgeSeconds;
+
+    @Value("${app.blog.http-cache.shared-max-age-seconds:300}")
+    private long cacheSharedMaxAgeSeconds;
+
     @GetMapping("/public/all")
-    public ResponseEntity<List<Blog>> getAllBlogs() {
-        // Return all published blogs
-        List<Blog> publishedBlogs = blogRepository.findByStatus(BlogStatus.PUBLISHED);
-        // Ensure all blogs have slugs (generate if missing)
-        for (Blog blog : publishedBlogs) {
-            if (blog.getSlug() == null || blog.getSlug().isEmpty()) {
-                String generatedSlug = generateSlug(blog.getTitle());
-                blog.setSlug(generatedSlug);
-                // Save the blog with the generated slug
-                blogRepository.save(blog);
+    public ResponseEntity<byte[]> getAllBlogs(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Return all published blogs from the in-memory read model, pre-serialized
+        // (missing slugs are filled in by SlugBackfillJob, never on read)
+        BlogCacheService.Snapshot snapshot = blogCacheService.snapshot();
+        return cachedJson(snapshot.getPublishedJson(), snapshot.getEtag(), snapshot.getLastModified(), acceptEncoding);
+    }
+
+    @GetMapping("/public/search")
+    public ResponseEntity<List<BlogSummary>> searchBlogs(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(required = false) Integer limit) {
+        int maxResults = BlogSearchService.clampLimit(limit);
+        BlogCacheService.Snapshot snapshot = blogCacheService.snapshot();
+        List<BlogSummary> results = new ArrayList<>();
+        for (Long blogId : blogSearchService.search(query, maxResults)) {
+            Blog blog = snapshot.findById(blogId);
+            // The index and the snapshot are updated one after the other; skip ids not yet visible
+            if (blog != null) {
+                results.add(BlogSummary.from(blog));
             }
         }
-        return ResponseEntity.ok(publishedBlogs);
+        return ResponseEntity.ok(results);
     }
 
     @GetMapping("/public/{id}")
-    public ResponseEntity<Blog> getBlogById(@PathVariable String id) {
+    public ResponseEntity<byte[]> getBlogById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         // Decode URL encoding (Spring usually does this, but be safe)
         String decodedId = id;
         try {
@@ -59,100 +110,88 @@ public class BlogController {
             decodedId = id;
         }
         
+        // Blog, body and validators all come from the same snapshot
+        BlogCacheService.Snapshot snapshot = blogCacheService.snapshot();
+        Blog blog;
         // Try to parse as Long (for backward compatibility)
         try {
-            Long blogId = Long.parseLong(decodedId);
-            Optional<Blog> blog = blogRepository.findById(blogId);
-            if (blog.isPresent() && blog.get().getStatus() == BlogStatus.PUBLISHED) {
-                return ResponseEntity.ok(blog.get());
-            }
+            blog = snapshot.findById(Long.parseLong(decodedId));
         } catch (NumberFormatException e) {
-            // Not a number, treat as slug
-            // First try exact match with stored slug (case-insensitive)
-            Optional<Blog> blog = blogRepository.findBySlug(decodedId);
-            if (blog.isPresent() && blog.get().getStatus() == BlogStatus.PUBLISHED) {
-                return ResponseEntity.ok(blog.get());
-            }
-            
-            // Also try case-insensitive match
-            List<Blog> allBlogs = blogRepository.findAll();
-            for (Blog b : allBlogs) {
-                if (b.getSlug() != null && b.getSlug().equalsIgnoreCase(decodedId) 
-                    && b.getStatus() == BlogStatus.PUBLISHED) {
-                    return ResponseEntity.ok(b);
-                }
-            }
-            
-            // Fallback: try to find by matching generated slug from title
-            // Get all published blogs and check if any title generates to this slug
-            List<Blog> allPublished = blogRepository.findByStatus(BlogStatus.PUBLISHED);
-            for (Blog publishedBlog : allPublished) {
-                // Generate slug from title
-                String generatedSlug = generateSlug(publishedBlog.getTitle());
-                if (generatedSlug.equalsIgnoreCase(decodedId)) {
-                    return ResponseEntity.ok(publishedBlog);
-                }
-                // Also check the stored slug if it exists (case-insensitive)
-                if (publishedBlog.getSlug() != null && publishedBlog.getSlug().equalsIgnoreCase(decodedId)) {
-                    return ResponseEntity.ok(publishedBlog);
-                }
-            }
-            
-            // Last fallback: try to find by title (simple hyphen replacement)
-            String title = decodedId.replace("-", " ");
-            Optional<Blog> blogByTitle = blogRepository.findByTitleIgnoreCase(title);
-            if (blogByTitle.isPresent() && blogByTitle.get().getStatus() == BlogStatus.PUBLISHED) {
-                return ResponseEntity.ok(blogByTitle.get());
-            }
+            // Not a number, treat as slug (exact, case-insensitive, generated from title or title itself)
+            blog = snapshot.resolveSlug(decodedId);
+        }
+        if (blog != null) {
+            return cachedJson(snapshot.getDetailJson(blog), BlogCacheService.etagOf(blog),
+                BlogCacheService.toEpochMillis(blog), acceptEncoding);
         }
         return ResponseEntity.notFound().build();
     }
 
     @GetMapping("/public/featured")
-    public ResponseEntity<List<Blog>> getFeaturedBlogs() {
-        // Return published featured blogs
-        List<Blog> allFeatured = blogRepository.findByIsFeatured(true);
-        List<Blog> publishedFeatured = allFeatured.stream()
-            .filter(blog -> blog.getStatus() == BlogStatus.PUBLISHED)
-            .toList();
-        return ResponseEntity.ok(publishedFeatured);
+    public ResponseEntity<byte[]> getFeaturedBlogs(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Return published featured blogs from the in-memory read model, pre-serialized
+        BlogCacheService.Snapshot snapshot = blogCacheService.snapshot();
+        return cachedJson(snapshot.getFeaturedJson(), snapshot.getEtag(), snapshot.getLastModified(), acceptEncoding);
     }
 
     @GetMapping("/admin/all")
-    public ResponseEntity<List<Blog>> getAllBlogsForAdmin() {
-        List<Blog> blogs = blogRepository.findAll();
+    public ResponseEntity<List<BlogSummary>> getAllBlogsForAdmin() {
+        // Listing without content - the editor loads a single blog via /admin/{id}
+        List<BlogSummary> blogs = blogRepository.findAllSummaries();
         return ResponseEntity.ok(blogs);
     }
 
+    @GetMapping("/admin/page")
+    public ResponseEntity<CursorPage<BlogSummary>> getBlogPageForAdmin(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        int pageSize = CursorPage.clampSize(size);
+        // Fetch one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<BlogSummary> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = blogRepository.findSummaryPage(limit);
+        } else {
+            KeysetCursor after;
+            try {
+                after = KeysetCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            rows = blogRepository.findSummaryPageAfter(after.getCreatedAt(), after.getId(), limit);
+        }
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize,
+            blog -> new KeysetCursor(blog.getCreatedAt(), blog.getId())));
+    }
+
+    @GetMapping("/admin/{id}")
+    public ResponseEntity<Blog> getBlogForAdmin(@PathVariable Long id) {
+        Optional<Blog> blog = blogRepository.findById(id);
+        if (blog.isPresent()) {
+            return ResponseEntity.ok(blog.get());
+        }
+        return ResponseEntity.notFound().build();
+    }
+
     @PostMapping("/admin")
     public ResponseEntity<Blog> createBlog(@RequestBody Blog blog) {
         // Generate slug if not provided
+        String baseSlug;
         if (blog.getSlug() == null || blog.getSlug().isEmpty()) {
-            blog.setSlug(generateSlug(blog.getTitle()));
+            baseSlug = generateSlug(blog.getTitle());
         } else {
             // Ensure slug is URL-friendly
-            blog.setSlug(generateSlug(blog.getSlug()));
-        }
-        
-        // Ensure slug is unique
-        String baseSlug = blog.getSlug();
-        String uniqueSlug = baseSlug;
-        int counter = 1;
-        while (blogRepository.findBySlug(uniqueSlug).isPresent()) {
-            uniqueSlug = baseSlug + "-" + counter;
-            counter++;
+            baseSlug = generateSlug(blog.getSlug());
         }
-        blog.setSlug(uniqueSlug);
         
-        Blog savedBlog = blogRepository.save(blog);
+        // Ensure slug is unique (one prefix query, retried on concurrent conflicts)
+        Blog savedBlog = blogSlugService.saveWithUniqueSlug(blog, baseSlug, null);
+        blogCacheService.blogSaved(savedBlog);
         
-        // Send email notification if blog is published
+        // Queue email notification if blog is published (sent in the background)
         if (savedBlog.getStatus() == BlogStatus.PUBLISHED) {
-            try {
-                emailService.sendBlogNotification(savedBlog);
-            } catch (Exception e) {
-                System.err.println("Failed to send blog notification: " + e.getMessage());
-            }
+            return withNotificationJob(savedBlog);
         }
         
         return ResponseEntity.ok(savedBlog);
@@ -164,6 +203,7 @@ public class BlogController {
         if (optionalBlog.isPresent()) {
             Blog blog = optionalBlog.get();
             BlogStatus previousStatus = blog.getStatus();
+            String currentSlug = blog.getSlug();
             
             blog.setTitle(blogDetails.getTitle());
             blog.setExcerpt(blogDetails.getExcerpt());
@@ -173,22 +213,9 @@ public class BlogController {
             blog.setTags(blogDetails.getTags());
             
             // Update slug if title changed or slug is empty
+            String newSlug = null;
             if (blogDetails.getSlug() != null && !blogDetails.getSlug().isEmpty()) {
-                String newSlug = generateSlug(blogDetails.getSlug());
-                // Check if slug is unique (excluding current blog)
-                Optional<Blog> existingBlog = blogRepository.findBySlug(newSlug);
-                if (existingBlog.isPresent() && !existingBlog.get().getId().equals(blog.getId())) {
-                    // Slug exists for another blog, make it unique
-                    String baseSlug = newSlug;
-                    int counter = 1;
-                    while (blogRepository.findBySlug(baseSlug + "-" + counter).isPresent() && 
-                           !blogRepository.findBySlug(baseSlug + "-" + counter).get().getId().equals(blog.getId())) {
-                        counter++;
-                    }
-                    blog.setSlug(baseSlug + "-" + counter);
-                } else {
-                    blog.setSlug(newSlug);
-                }
+                newSlug = generateSlug(blogDetails.getSlug());
             } else if (!blog.getTitle().equals(blogDetails.getTitle())) {
                 // Title changed, regenerate slug
                 blog.setSlug(generateSlug(blogDetails.getTitle()));
@@ -197,15 +224,15 @@ public class BlogController {
             blog.setContent(blogDetails.getContent());
             blog.setIsFeatured(blogDetails.getIsFeatured());
             blog.setStatus(blogDetails.getStatus());
-            Blog updatedBlog = blogRepository.save(blog);
+            // Slug must stay unique (excluding current blog)
+            Blog updatedBlog = newSlug != null
+                ? blogSlugService.saveWithUniqueSlug(blog, newSlug, currentSlug)
+                : blogRepository.save(blog);
+            blogCacheService.blogSaved(updatedBlog);
             
-            // Send email notification if status changed from non-published to published
+            // Queue email notification if status changed from non-published to published
             if (previousStatus != BlogStatus.PUBLISHED && updatedBlog.getStatus() == BlogStatus.PUBLISHED) {
-                try {
-                    emailService.sendBlogNotification(updatedBlog);
-                } catch (Exception e) {
-                    System.err.println("Failed to send blog notification: " + e.getMessage());
-                }
+                return withNotificationJob(updatedBlog);
             }
             
             return ResponseEntity.ok(updatedBlog);
@@ -217,11 +244,28 @@ public class BlogController {
     public ResponseEntity<?> deleteBlog(@PathVariable Long id) {
         if (blogRepository.existsById(id)) {
             blogRepository.deleteById(id);
+            blogCacheService.blogDeleted(id);
             return ResponseEntity.ok().build();
         }
         return ResponseEntity.notFound().build();
     }
 
+    @GetMapping("/admin/notifications/{jobId}")
+    public ResponseEntity<NotificationJobStatus> getNotificationJob(@PathVariable String jobId) {
+        Optional<NotificationJobStatus> status = newsletterFanoutService.getJobStatus(jobId);
+        if (status.isPresent()) {
+            return ResponseEntity.ok(status.get());
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/admin/backfill-slugs")
+    public ResponseEntity<Map<String, Object>> backfillSlugs() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("updated", slugBackfillJob.backfill());
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/admin/upload-image")
     public ResponseEntity<Map<String, String>> uploadImage(@RequestParam("file") MultipartFile file) {
         Map<String, String> response = new HashMap<>();
@@ -241,25 +285,70 @@ public class BlogController {
         }
     }
 
+    // Starts the newsletter fan-out; the job id is returned in a header so the body stays the saved blog
+    private ResponseEntity<Blog> withNotificationJob(Blog blog) {
+        try {
+            String jobId = newsletterFanoutService.startBlogNotification(blog);
+            return ResponseEntity.ok().header(NOTIFICATION_JOB_HEADER, jobId).body(blog);
+        } catch (Exception e) {
+            System.err.println("Failed to queue blog notification: " + e.getMessage());
+            return ResponseEntity.ok(blog);
+        }
+    }
+
+    // Public responses carry validators; Spring answers If-None-Match / If-Modified-Since
+    // with 304 from these headers without serializing the body
+    private ResponseEntity.BodyBuilder cacheable(String etag, long lastModified) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.maxAge(Duration.ofSeconds(cacheMaxAgeSeconds))
+                .sMaxAge(Duration.ofSeconds(cacheSharedMaxAgeSeconds))
+                .cachePublic());
+        if (lastModified >= 0) {
+            builder.lastModified(lastModified);
+        }
+        return builder;
+    }
+
+    // Writes pre-serialized JSON, gzipped when the client accepts it.
+    // The gzip variant is a different byte representation, so it gets its own strong ETag.
+    private ResponseEntity<byte[]> cachedJson(PreSerializedResponse body, String etag, long lastModified,
+                                              String acceptEncoding) {
+        if (acceptsGzip(acceptEncoding)) {
+            String gzipEtag = etag.substring(0, etag.length() - 1) + "-gz\"";
+            return cacheable(gzipEtag, lastModified)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(body.getGzip());
+        }
+        return cacheable(etag, lastModified)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .body(body.getJson());
+    }
+
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                // "gzip;q=0" explicitly refuses gzip
+                if (parts.length < 2) {
+                    return true;
+                }
+                String quality = parts[1].trim();
+                return !(quality.equals("q=0") || quality.startsWith("q=0.")
+                    && quality.substring(4).chars().allMatch(c -> c == '0'));
+            }
+        }
+        return false;
+    }
+
     // Helper method to generate URL-friendly slug from title
     private String generateSlug(String title) {
-        if (title == null || title.isEmpty()) {
-            return "";
-        }
-        
-        // Convert to lowercase
-        String slug = title.toLowerCase();
-        
-        // Remove accents/diacritics
-        slug = Normalizer.normalize(slug, Normalizer.Form.NFD);
-        slug = slug.replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
-        
-        // Replace spaces and special characters with hyphens
-        slug = slug.replaceAll("[^a-z0-9\\s-]", "");
-        slug = slug.replaceAll("\\s+", "-");
-        slug = slug.replaceAll("-+", "-");
-        slug = slug.replaceAll("^-|-$", "");
-        
-        return slug;
+        return slugGenerator.generateSlug(title);
     }
 }
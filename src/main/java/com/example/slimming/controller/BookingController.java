@@ -1,15 +1,23 @@
 package com.example.slimming.controller;
 
+import com.example.slimming.dto.CursorPage;
+import com.example.slimming.dto.KeysetCursor;
 import com.example.slimming.entity.Booking;
+import com.example.slimming.enums.ExportFormat;
 import com.example.slimming.repository.BookingRepository;
-import com.example.slimming.service.EmailService;
-import com.example.slimming.service.TeleCRMService;
+import com.example.slimming.service.BookingService;
+import com.example.slimming.service.DataExportService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @RestController
@@ -21,32 +29,16 @@ public class BookingController {
     private BookingRepository bookingRepository;
 
     @Autowired
-    private EmailService emailService;
+    private BookingService bookingService;
 
     @Autowired
-    private TeleCRMService teleCRMService;
+    private DataExportService dataExportService;
 
     // Public endpoint - Anyone can submit a booking
     @PostMapping
     public ResponseEntity<Booking> saveBooking(@RequestBody Booking booking) {
-        Booking savedBooking = bookingRepository.save(booking);
-        
-        // Send confirmation emails (to customer and admin)
-        try {
-            emailService.sendBookingConfirmation(savedBooking);
-        } catch (Exception e) {
-            System.err.println("Failed to send booking confirmation emails: " + e.getMessage());
-            // Don't fail the booking if email fails - booking is already saved
-        }
-        
-        // Send lead to TeleCRM (fire-and-forget)
-        try {
-            teleCRMService.createLead(savedBooking);
-        } catch (Exception e) {
-            System.err.println("Failed to send lead to TeleCRM: " + e.getMessage());
-            // Don't fail the booking if TeleCRM fails - booking is already saved
-        }
-        
+        // Confirmation emails and the TeleCRM lead are handled after commit, off the request thread
+        Booking savedBooking = bookingService.createBooking(booking);
         return ResponseEntity.ok(savedBooking);
     }
 
@@ -57,6 +49,48 @@ public class BookingController {
         return ResponseEntity.ok(bookings);
     }
 
+    @GetMapping("/admin/page")
+    public ResponseEntity<CursorPage<Booking>> getBookingPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        int pageSize = CursorPage.clampSize(size);
+        // Fetch one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<Booking> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = bookingRepository.findByOrderByCreatedAtDescIdDesc(limit);
+        } else {
+            KeysetCursor after;
+            try {
+                after = KeysetCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            rows = bookingRepository.findPageAfter(after.getCreatedAt(), after.getId(), limit);
+        }
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize,
+            booking -> new KeysetCursor(booking.getCreatedAt(), booking.getId())));
+    }
+
+    // Streams every row as CSV or NDJSON (optionally gzipped) without loading the table
+    @GetMapping("/admin/export")
+    public ResponseEntity<StreamingResponseBody> exportBookings(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String filename = "bookings." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> dataExportService.exportBookings(exportFormat, gzip, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType() + ";charset=UTF-8"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .body(body);
+    }
+
     @GetMapping("/admin/unread")
     public ResponseEntity<List<Booking>> getUnreadBookings() {
         List<Booking> unreadBookings = bookingRepository.findByIsReadFalseOrderByCreatedAtDesc();
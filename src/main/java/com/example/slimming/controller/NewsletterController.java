@@ -1,14 +1,29 @@
 package com.example.slimming.controller;
 
+import com.example.slimming.dto.CursorPage;
+import com.example.slimming.dto.KeysetCursor;
 import com.example.slimming.entity.NewsletterSubscriber;
+import com.example.slimming.enums.ExportFormat;
 import com.example.slimming.repository.NewsletterSubscriberRepository;
-import com.example.slimming.service.EmailService;
+import com.example.slimming.service.DataExportService;
+import com.example.slimming.service.NewsletterService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
@@ -21,7 +36,13 @@ public class NewsletterController {
     private NewsletterSubscriberRepository subscriberRepository;
 
     @Autowired
-    private EmailService emailService;
+    private NewsletterService newsletterService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DataExportService dataExportService;
 
     // Public endpoint - Subscribe to newsletter
     @PostMapping("/subscribe")
@@ -49,8 +70,7 @@ public class NewsletterController {
             } else {
                 // Reactivate existing subscriber
                 subscriber.setIsActive(true);
-                subscriberRepository.save(subscriber);
-                emailService.sendWelcomeEmail(email);
+                newsletterService.subscribe(subscriber);
                 response.put("success", true);
                 response.put("message", "Successfully resubscribed to newsletter");
                 return ResponseEntity.ok(response);
@@ -61,9 +81,7 @@ public class NewsletterController {
         NewsletterSubscriber newSubscriber = new NewsletterSubscriber();
         newSubscriber.setEmail(email);
         newSubscriber.setIsActive(true);
-        subscriberRepository.save(newSubscriber);
-        
-        emailService.sendWelcomeEmail(email);
+        newsletterService.subscribe(newSubscriber);
         
         response.put("success", true);
         response.put("message", "Successfully subscribed to newsletter");
@@ -77,10 +95,67 @@ public class NewsletterController {
         return ResponseEntity.ok(subscribers);
     }
 
+    // Streams every row as CSV or NDJSON (optionally gzipped) without loading the table
+    @GetMapping("/admin/export")
+    public ResponseEntity<StreamingResponseBody> exportSubscribers(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        String filename = "subscribers." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> dataExportService.exportSubscribers(exportFormat, gzip, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : exportFormat.getContentType() + ";charset=UTF-8"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .body(body);
+    }
+
+    @GetMapping("/admin/page")
+    public ResponseEntity<CursorPage<NewsletterSubscriber>> getSubscriberPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        int pageSize = CursorPage.clampSize(size);
+        // Fetch one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<NewsletterSubscriber> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = subscriberRepository.findByOrderBySubscribedAtDescIdDesc(limit);
+        } else {
+            KeysetCursor after;
+            try {
+                after = KeysetCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            rows = subscriberRepository.findPageAfter(after.getCreatedAt(), after.getId(), limit);
+        }
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize,
+            subscriber -> new KeysetCursor(subscriber.getSubscribedAt(), subscriber.getId())));
+    }
+
+    // Streams the JSON array row by row, so memory use does not depend on the subscriber count
     @GetMapping("/admin/active")
-    public ResponseEntity<List<NewsletterSubscriber>> getActiveSubscribers() {
-        List<NewsletterSubscriber> activeSubscribers = subscriberRepository.findByIsActiveTrue();
-        return ResponseEntity.ok(activeSubscribers);
+    public ResponseEntity<StreamingResponseBody> getActiveSubscribers() {
+        ObjectWriter writer = objectMapper.writerFor(NewsletterSubscriber.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                newsletterService.forEachActiveSubscriber(subscriber -> {
+                    try {
+                        writer.writeValue(generator, subscriber);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @PostMapping("/admin/add")
@@ -0,0 +1,48 @@
+package com.example.slimming.dto;
+
+import com.example.slimming.entity.Blog;
+import com.example.slimming.enums.BlogStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Blog listing row: every Blog column except the content TEXT body.
+ * Listing endpoints return this; only the detail endpoint returns full content.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlogSummary {
+    private Long id;
+    private String title;
+    private String excerpt;
+    private String image;
+    private String category;
+    private String slug;
+    private String metaDescription;
+    private String tags;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Boolean isFeatured;
+    private BlogStatus status;
+
+    public static BlogSummary from(Blog blog) {
+        return new BlogSummary(
+            blog.getId(),
+            blog.getTitle(),
+            blog.getExcerpt(),
+            blog.getImage(),
+            blog.getCategory(),
+            blog.getSlug(),
+            blog.getMetaDescription(),
+            blog.getTags(),
+            blog.getCreatedAt(),
+            blog.getUpdatedAt(),
+            blog.getIsFeatured(),
+            blog.getStatus()
+        );
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.slimming.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing.
+ * nextCursor is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private List<T> items;
+    private String nextCursor;
+    private int size;
+
+    public static int clampSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * Builds a page from a query that fetched size + 1 rows; the extra row only signals that more exist.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null, size);
+        }
+        List<T> items = rows.subList(0, size);
+        String nextCursor = cursorOf.apply(items.get(size - 1)).encode();
+        return new CursorPage<>(List.copyOf(items), nextCursor, size);
+    }
+}
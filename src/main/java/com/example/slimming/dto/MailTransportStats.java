@@ -0,0 +1,16 @@
+package com.example.slimming.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailTransportStats {
+    private long messagesSent;
+    private long messagesFailed;
+    private long batches;
+    private double messagesPerSecond;
+    private double averageMessageLatencyMillis;
+}
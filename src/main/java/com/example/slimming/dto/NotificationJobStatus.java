@@ -0,0 +1,22 @@
+package com.example.slimming.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationJobStatus {
+    private String jobId;
+    private Long blogId;
+    private String status;
+    private int total;
+    private int sent;
+    private int failed;
+    private int deferred; // Failures that were 4xx deferrals; included in failed
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,16 @@
+package com.example.slimming.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The two subscriber columns a newsletter send needs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriberAddress {
+    private Long id;
+    private String email;
+}
@@ -0,0 +1,26 @@
+package com.example.slimming.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Body of a TeleCRM /autoupdatelead request: {"fields": {...}}.
+ * TeleCRM upserts the lead by the phone field; note and client_concerns are omitted when absent.
+ */
+public record TeleCrmLeadPayload(Fields fields) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Fields(
+        String name,
+        String phone,
+        String email,
+        @JsonProperty("appointment_date_and_time") String appointmentDateAndTime,
+        String note,
+        // TeleCRM's lead source dropdown has been seen under all three names
+        @JsonProperty("lead_source") String leadSource,
+        @JsonProperty("leadSource") String leadSourceCamelCase,
+        String source,
+        @JsonProperty("client_concerns") String clientConcerns
+    ) {
+    }
+}
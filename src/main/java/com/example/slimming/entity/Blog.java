@@ -9,7 +9,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "blogs")
+@Table(name = "blogs", indexes = @Index(name = "idx_blogs_created_at_id", columnList = "created_at, id"),
+    uniqueConstraints = @UniqueConstraint(name = "uk_blogs_slug", columnNames = "slug"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,8 +31,8 @@ public class Blog {
     @Column(nullable = false)
     private String category;
 
-    @Column(nullable = true, unique = true)
-    private String slug;
+    @Column(nullable = true)
+    private String slug; // Unique (uk_blogs_slug); BlogSlugService retries saves that hit it
 
     @Column(nullable = true, columnDefinition = "TEXT")
     private String metaDescription;
@@ -1,5 +1,6 @@
 package com.example.slimming.entity;
 
+import com.example.slimming.enums.CrmSyncStatus;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,7 +9,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bookings")
+@Table(name = "bookings", indexes = {
+    @Index(name = "idx_bookings_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_bookings_crm_sync_id", columnList = "crm_sync_status, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,12 +48,22 @@ public class Booking {
     @Column(nullable = false)
     private Boolean isRead = false;
 
+    // Whether the booking's lead has reached TeleCRM; maintained by CrmLeadQueue
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private CrmSyncStatus crmSyncStatus = CrmSyncStatus.PENDING;
+
+    private LocalDateTime crmLastAttemptAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         if (isRead == null) {
             isRead = false;
         }
+        if (crmSyncStatus == null) {
+            crmSyncStatus = CrmSyncStatus.PENDING;
+        }
     }
 }
 
@@ -0,0 +1,79 @@
+package com.example.slimming.entity;
+
+import com.example.slimming.enums.EmailType;
+import com.example.slimming.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_email_outbox_recipient_type_created", columnList = "recipient, type, created_at"),
+    @Index(name = "idx_email_outbox_reference_type", columnList = "reference_id, type")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_email_outbox_dedupe_key", columnNames = "dedupe_key"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private EmailType type;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = true)
+    private Long referenceId; // Booking, subscriber or blog id, depending on type
+
+    @Column(length = 320)
+    private String dedupeKey; // Only set for emails that must not be queued twice, e.g. welcome emails
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime sentAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+        if (status == null) {
+            status = OutboxStatus.PENDING;
+        }
+        if (attempts == null) {
+            attempts = 0;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
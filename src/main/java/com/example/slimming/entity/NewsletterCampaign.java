@@ -0,0 +1,66 @@
+package com.example.slimming.entity;
+
+import com.example.slimming.enums.CampaignStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "newsletter_campaigns", indexes = @Index(name = "idx_campaigns_status", columnList = "status"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsletterCampaign {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long blogId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private CampaignStatus status = CampaignStatus.QUEUED;
+
+    // Highest subscriber id whose page has been fully sent; the campaign resumes after it
+    @Column(nullable = false)
+    private Long lastSubscriberId = 0L;
+
+    @Column(nullable = false)
+    private Integer total = 0;
+
+    @Column(nullable = false)
+    private Integer sent = 0;
+
+    @Column(nullable = false)
+    private Integer failed = 0;
+
+    @Column(nullable = false)
+    private Integer deferred = 0;
+
+    // Instance sending (or about to send) the campaign; it heart-beats updatedAt while it does
+    @Column(length = 64)
+    private String owner;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -8,7 +8,10 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "newsletter_subscribers")
+@Table(name = "newsletter_subscribers", indexes = {
+    @Index(name = "idx_subscribers_subscribed_at_id", columnList = "subscribed_at, id"),
+    @Index(name = "idx_subscribers_active_id", columnList = "is_active, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
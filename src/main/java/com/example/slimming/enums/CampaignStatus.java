@@ -0,0 +1,9 @@
+package com.example.slimming.enums;
+
+public enum CampaignStatus {
+    QUEUED,
+    RUNNING,
+    INTERRUPTED,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,9 @@
+package com.example.slimming.enums;
+
+public enum CrmSyncStatus {
+    PENDING,
+    SYNCED,
+    FAILED,
+    // Created before sync status was tracked; whether it reached TeleCRM is unknown, so it is never reconciled
+    LEGACY
+}
@@ -0,0 +1,8 @@
+package com.example.slimming.enums;
+
+public enum EmailType {
+    BOOKING_CUSTOMER_CONFIRMATION,
+    BOOKING_ADMIN_NOTIFICATION,
+    WELCOME,
+    BLOG_NOTIFICATION
+}
@@ -0,0 +1,8 @@
+package com.example.slimming.enums;
+
+public enum LeadSyncStatus {
+    PENDING,
+    SENDING,
+    SYNCED,
+    FAILED
+}
@@ -0,0 +1,14 @@
+package com.example.slimming.event;
+
+import com.example.slimming.entity.Booking;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Published inside the booking transaction; listeners act on it only after commit.
+ */
+@Data
+@AllArgsConstructor
+public class BookingCreatedEvent {
+    private Booking booking;
+}
@@ -1,20 +1,44 @@
 package com.example.slimming.repository;
 
+import com.example.slimming.dto.BlogSummary;
 import com.example.slimming.entity.Blog;
 import com.example.slimming.enums.BlogStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BlogRepository extends JpaRepository<Blog, Long> {
+    // Listing projection - never selects the content TEXT column
+    String SUMMARY_SELECT = "SELECT new com.example.slimming.dto.BlogSummary(b.id, b.title, b.excerpt, b.image, "
+        + "b.category, b.slug, b.metaDescription, b.tags, b.createdAt, b.updatedAt, b.isFeatured, b.status) FROM Blog b";
+
     List<Blog> findByIsFeatured(Boolean isFeatured);
     List<Blog> findByCategory(String category);
     Optional<Blog> findById(Long id);
     List<Blog> findByStatus(BlogStatus status);
     Optional<Blog> findByTitleIgnoreCase(String title);
     Optional<Blog> findBySlug(String slug);
+
+    // Slugs are [a-z0-9-] only, so the base needs no LIKE escaping
+    @Query("SELECT b.slug FROM Blog b WHERE b.slug = :base OR b.slug LIKE CONCAT(:base, '-%')")
+    List<String> findSlugsByBase(@Param("base") String base);
+
+    @Query(SUMMARY_SELECT + " ORDER BY b.id")
+    List<BlogSummary> findAllSummaries();
+
+    // Keyset pagination on (createdAt, id), newest first
+    @Query(SUMMARY_SELECT + " ORDER BY b.createdAt DESC, b.id DESC")
+    List<BlogSummary> findSummaryPage(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " WHERE b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id)"
+        + " ORDER BY b.createdAt DESC, b.id DESC")
+    List<BlogSummary> findSummaryPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 }
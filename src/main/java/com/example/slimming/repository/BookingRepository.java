@@ -1,14 +1,46 @@
 package com.example.slimming.repository;
 
 import com.example.slimming.entity.Booking;
+import com.example.slimming.enums.CrmSyncStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByOrderByCreatedAtDesc();
     List<Booking> findByIsReadFalseOrderByCreatedAtDesc();
-}
 
+    // Keyset pagination on (createdAt, id), newest first
+    List<Booking> findByOrderByCreatedAtDescIdDesc(Pageable pageable);
+
+    @Query("SELECT b FROM Booking b WHERE b.createdAt < :createdAt OR (b.createdAt = :createdAt AND b.id < :id)"
+        + " ORDER BY b.createdAt DESC, b.id DESC")
+    List<Booking> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // Oldest booking created at or after the given time; served by idx_bookings_created_at_id
+    Optional<Booking> findFirstByCreatedAtGreaterThanEqualOrderByCreatedAtAscIdAsc(LocalDateTime createdAt);
+
+    // Keyset scan over idx_bookings_crm_sync_id: settled bookings in one sync state, oldest first
+    @Query("SELECT b FROM Booking b WHERE b.crmSyncStatus = :status AND b.id > :afterId AND b.createdAt < :createdBefore"
+        + " AND (b.crmLastAttemptAt IS NULL OR b.crmLastAttemptAt < :attemptedBefore) ORDER BY b.id")
+    List<Booking> findCrmReconcileCandidates(@Param("status") CrmSyncStatus status, @Param("afterId") Long afterId,
+                                             @Param("createdBefore") LocalDateTime createdBefore,
+                                             @Param("attemptedBefore") LocalDateTime attemptedBefore, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Booking b SET b.crmSyncStatus = :status, b.crmLastAttemptAt = :attemptedAt WHERE b.id = :id")
+    int updateCrmSync(@Param("id") Long id, @Param("status") CrmSyncStatus status, @Param("attemptedAt") LocalDateTime attemptedAt);
+
+    // Bookings created before the column existed
+    @Modifying
+    @Query("UPDATE Booking b SET b.crmSyncStatus = :status WHERE b.crmSyncStatus IS NULL")
+    int initCrmSyncStatus(@Param("status") CrmSyncStatus status);
+}
@@ -0,0 +1,55 @@
+package com.example.slimming.repository;
+
+import com.example.slimming.entity.CrmLead;
+import com.example.slimming.enums.LeadSyncStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CrmLeadRepository extends JpaRepository<CrmLead, Long> {
+    long countByStatus(LeadSyncStatus status);
+
+    // Atomic upsert on the unique phone: a repeat booking replaces the queued one and re-arms the row
+    @Modifying
+    @Query(value = "INSERT INTO crm_lead_queue (phone, booking_id, status, attempts, next_attempt_at, created_at, updated_at) "
+        + "VALUES (:phone, :bookingId, 'PENDING', 0, :now, :now, :now) "
+        + "ON DUPLICATE KEY UPDATE booking_id = VALUES(booking_id), status = 'PENDING', attempts = 0, "
+        + "next_attempt_at = VALUES(next_attempt_at), last_error = NULL, updated_at = VALUES(updated_at)", nativeQuery = true)
+    int upsertPending(@Param("phone") String phone, @Param("bookingId") Long bookingId, @Param("now") LocalDateTime now);
+
+    // Inserts the lead unless the phone already has one; an existing row only moves forward to a
+    // newer booking. Used when no row was found under lock, so the outcome is known without relying
+    // on the affected-rows count (Connector/J reports 1 for a no-op update unless useAffectedRows=true).
+    // Conditions read the old status/booking_id, so those columns are assigned last.
+    @Modifying
+    @Query(value = "INSERT INTO crm_lead_queue (phone, booking_id, status, attempts, next_attempt_at, created_at, updated_at) "
+        + "VALUES (:phone, :bookingId, 'PENDING', 0, :now, :now, :now) "
+        + "ON DUPLICATE KEY UPDATE "
+        + "attempts = IF(VALUES(booking_id) > booking_id, 0, attempts), "
+        + "next_attempt_at = IF(VALUES(booking_id) > booking_id, VALUES(next_attempt_at), next_attempt_at), "
+        + "last_error = IF(VALUES(booking_id) > booking_id, NULL, last_error), "
+        + "updated_at = IF(VALUES(booking_id) > booking_id, VALUES(updated_at), updated_at), "
+        + "status = IF(VALUES(booking_id) > booking_id, 'PENDING', status), "
+        + "booking_id = GREATEST(booking_id, VALUES(booking_id))", nativeQuery = true)
+    int insertIfNewer(@Param("phone") String phone, @Param("bookingId") Long bookingId, @Param("now") LocalDateTime now);
+
+    @Query(value = "SELECT * FROM crm_lead_queue WHERE phone = :phone FOR UPDATE", nativeQuery = true)
+    Optional<CrmLead> lockByPhone(@Param("phone") String phone);
+
+    @Query(value = "SELECT * FROM crm_lead_queue WHERE status = 'PENDING' AND next_attempt_at <= :now "
+        + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<CrmLead> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Rows stuck in SENDING belong to a flush that died mid-call
+    @Modifying
+    @Query("UPDATE CrmLead l SET l.status = :pending WHERE l.status = :sending AND l.updatedAt < :staleBefore")
+    int releaseStale(@Param("sending") LeadSyncStatus sending, @Param("pending") LeadSyncStatus pending,
+                     @Param("staleBefore") LocalDateTime staleBefore);
+}
@@ -0,0 +1,52 @@
+package com.example.slimming.repository;
+
+import com.example.slimming.entity.EmailOutbox;
+import com.example.slimming.enums.EmailType;
+import com.example.slimming.enums.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    long countByStatus(OutboxStatus status);
+
+    boolean existsByTypeAndRecipientAndCreatedAtAfter(EmailType type, String recipient, LocalDateTime createdAfter);
+
+    // Atomic on the unique dedupe_key: concurrent callers with the same key insert one row between them.
+    // INSERT IGNORE reports 0 rows for the duplicates whatever Connector/J's useAffectedRows is set to
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO email_outbox (type, recipient, reference_id, dedupe_key, status, attempts, "
+        + "next_attempt_at, created_at, updated_at) "
+        + "VALUES (:type, :recipient, :referenceId, :dedupeKey, 'PENDING', 0, :now, :now, :now)", nativeQuery = true)
+    int insertIfAbsent(@Param("type") String type, @Param("recipient") String recipient,
+                       @Param("referenceId") Long referenceId, @Param("dedupeKey") String dedupeKey,
+                       @Param("now") LocalDateTime now);
+
+    // Row locks are held until the claiming transaction commits; other dispatchers skip them
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now "
+        + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockDueBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Due rows of one booking/blog/subscriber, e.g. a booking's confirmation emails right after it commits
+    @Query(value = "SELECT * FROM email_outbox WHERE reference_id = :referenceId AND type IN (:types) "
+        + "AND status = 'PENDING' AND next_attempt_at <= :now ORDER BY id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockDueForReference(@Param("referenceId") Long referenceId, @Param("types") List<String> types,
+                                          @Param("now") LocalDateTime now);
+
+    // Heartbeat for rows still being sent, so releaseStale does not hand them to another dispatcher
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.updatedAt = :now WHERE e.id IN :ids AND e.status = :processing")
+    int touch(@Param("ids") List<Long> ids, @Param("processing") OutboxStatus processing, @Param("now") LocalDateTime now);
+
+    // Rows stuck in PROCESSING belong to a dispatcher that died mid-send
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :pending WHERE e.status = :processing AND e.updatedAt < :staleBefore")
+    int releaseStale(@Param("processing") OutboxStatus processing, @Param("pending") OutboxStatus pending,
+                     @Param("staleBefore") LocalDateTime staleBefore);
+}
@@ -0,0 +1,46 @@
+package com.example.slimming.repository;
+
+import com.example.slimming.entity.NewsletterCampaign;
+import com.example.slimming.enums.CampaignStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NewsletterCampaignRepository extends JpaRepository<NewsletterCampaign, Long> {
+    List<NewsletterCampaign> findByStatusInOrderByIdAsc(Collection<CampaignStatus> statuses);
+
+    // Takes over an unfinished campaign nobody owns, or whose owner stopped heart-beating.
+    // Conditional, so exactly one instance wins; returns 0 for the others
+    @Modifying
+    @Transactional
+    @Query("UPDATE NewsletterCampaign c SET c.owner = :owner, c.status = :running, c.updatedAt = :now"
+        + " WHERE c.id = :id AND c.status IN :claimable AND (c.owner IS NULL OR c.updatedAt < :staleBefore)")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("running") CampaignStatus running,
+              @Param("claimable") Collection<CampaignStatus> claimable, @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore);
+
+    // Writes progress only while the caller still owns the campaign; 0 means another
+    // instance has taken it over and the caller must stop sending
+    @Modifying
+    @Transactional
+    @Query("UPDATE NewsletterCampaign c SET c.status = :status, c.owner = :newOwner,"
+        + " c.lastSubscriberId = :lastSubscriberId, c.sent = :sent, c.failed = :failed, c.deferred = :deferred,"
+        + " c.finishedAt = :finishedAt, c.updatedAt = :now WHERE c.id = :id AND c.owner = :owner")
+    int saveIfOwner(@Param("id") Long id, @Param("owner") String owner, @Param("status") CampaignStatus status,
+                    @Param("newOwner") String newOwner, @Param("lastSubscriberId") Long lastSubscriberId,
+                    @Param("sent") Integer sent, @Param("failed") Integer failed, @Param("deferred") Integer deferred,
+                    @Param("finishedAt") LocalDateTime finishedAt, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE NewsletterCampaign c SET c.updatedAt = :now WHERE c.id IN :ids AND c.owner = :owner")
+    int heartbeat(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
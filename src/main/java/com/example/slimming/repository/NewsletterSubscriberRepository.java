@@ -1,16 +1,46 @@
 package com.example.slimming.repository;
 
+import com.example.slimming.dto.SubscriberAddress;
 import com.example.slimming.entity.NewsletterSubscriber;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface NewsletterSubscriberRepository extends JpaRepository<NewsletterSubscriber, Long> {
     Optional<NewsletterSubscriber> findByEmail(String email);
-    List<NewsletterSubscriber> findByIsActiveTrue();
+    long countByIsActiveTrue();
+
+    // Keyset pages of active subscriber addresses in id order, for resumable campaigns
+    @Query("SELECT new com.example.slimming.dto.SubscriberAddress(s.id, s.email) FROM NewsletterSubscriber s"
+        + " WHERE s.isActive = true AND s.id > :id ORDER BY s.id")
+    List<SubscriberAddress> findActiveAddressesAfter(@Param("id") Long id, Pageable pageable);
+
+    // Row-by-row cursor (MySQL streams result sets only with fetch size Integer.MIN_VALUE);
+    // must be consumed inside a transaction and closed
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM NewsletterSubscriber s WHERE s.isActive = true ORDER BY s.id")
+    Stream<NewsletterSubscriber> streamActive();
     List<NewsletterSubscriber> findAllByOrderBySubscribedAtDesc();
+
+    // Keyset pagination on (subscribedAt, id), newest first
+    List<NewsletterSubscriber> findByOrderBySubscribedAtDescIdDesc(Pageable pageable);
+
+    @Query("SELECT s FROM NewsletterSubscriber s WHERE s.subscribedAt < :subscribedAt"
+        + " OR (s.subscribedAt = :subscribedAt AND s.id < :id) ORDER BY s.subscribedAt DESC, s.id DESC")
+    List<NewsletterSubscriber> findPageAfter(@Param("subscribedAt") LocalDateTime subscribedAt, @Param("id") Long id, Pageable pageable);
 }
 
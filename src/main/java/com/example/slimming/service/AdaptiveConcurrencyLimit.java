@@ -0,0 +1,53 @@
+package com.example.slimming.service;
+
+/**
+ * Concurrency limit adjusted with AIMD (additive increase, multiplicative decrease).
+ * Each uncongested completion grows the limit by 1/limit, i.e. about one slot per
+ * full window; a congested completion (e.g. the remote server deferred mail) halves it.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Blocks until fewer than the current limit of tasks are in flight.
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= (int) limit) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    public synchronized void release(boolean congested) {
+        inFlight--;
+        if (congested) {
+            limit = Math.max(minLimit, limit / 2);
+        } else {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Blocks until every acquired slot has been released.
+     */
+    public synchronized void awaitIdle() throws InterruptedException {
+        while (inFlight > 0) {
+            wait();
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.slimming.service;
+
+import com.example.slimming.dto.BlogSummary;
+import com.example.slimming.entity.Blog;
+import com.example.slimming.enums.BlogStatus;
+import com.example.slimming.repository.BlogRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory read model of all published blogs.
+ * Public endpoints read from an immutable snapshot that is swapped atomically
+ * whenever an admin creates, updates or deletes a blog, so reads never hit the
+ * database and never take a lock. Listings are served as content-free
+ * {@link BlogSummary} rows; full blogs are kept only for the detail lookups.
+ * The listing JSON is serialized (and gzipped) once per snapshot, detail JSON once
+ * per blog on first request.
+ */
+@Service
+public class BlogCacheService {
+
+    @Autowired
+    private BlogRepository blogRepository;
+
+    @Autowired
+    private SlugGenerator slugGenerator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BlogSearchService blogSearchService;
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+        blogSearchService.rebuild(getPublishedBlogs());
+    }
+
+    /**
+     * Current snapshot; callers that need several values (e.g. a body and its ETag)
+     * should read them all from the same snapshot.
+     */
+    public Snapshot snapshot() {
+        return currentSnapshot();
+    }
+
+    public List<Blog> getPublishedBlogs() {
+        return currentSnapshot().published;
+    }
+
+    public List<BlogSummary> getPublishedSummaries() {
+        return currentSnapshot().publishedSummaries;
+    }
+
+    public List<BlogSummary> getFeaturedSummaries() {
+        return currentSnapshot().featuredSummaries;
+    }
+
+    public Optional<Blog> findById(Long id) {
+        return Optional.ofNullable(currentSnapshot().byId.get(id));
+    }
+
+    /**
+     * Resolves a public slug to a published blog using the precomputed slug index.
+     */
+    public Optional<Blog> resolveSlug(String slug) {
+        return Optional.ofNullable(currentSnapshot().resolveSlug(slug));
+    }
+
+    /**
+     * Called after a blog has been saved so the published view reflects the change.
+     */
+    public void blogSaved(Blog blog) {
+        refresh();
+        blogSearchService.index(blog);
+    }
+
+    /**
+     * Called after a blog has been deleted so it disappears from the published view.
+     */
+    public void blogDeleted(Long id) {
+        refresh();
+        blogSearchService.remove(id);
+    }
+
+    /**
+     * Reloads every published blog and publishes a new snapshot.
+     * Writers are serialized; readers keep using the previous snapshot until the swap.
+     */
+    public synchronized void refresh() {
+        List<Blog> published = blogRepository.findByStatus(BlogStatus.PUBLISHED);
+        snapshot = new Snapshot(published, slugGenerator, objectMapper, snapshot);
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    public static final class Snapshot {
+        private final List<Blog> published;
+        private final List<BlogSummary> publishedSummaries;
+        private final List<BlogSummary> featuredSummaries;
+        private final Map<Long, Blog> byId;
+        private final BlogSlugIndex slugIndex;
+        private final String etag;
+        private final long lastModified;
+        private final ObjectMapper objectMapper;
+        private final PreSerializedResponse publishedJson;
+        private final PreSerializedResponse featuredJson;
+        private final Map<Long, PreSerializedResponse> detailJson = new ConcurrentHashMap<>();
+
+        private Snapshot(List<Blog> blogs, SlugGenerator slugGenerator, ObjectMapper objectMapper, Snapshot previous) {
+            Map<Long, Blog> ids = new HashMap<>();
+            long maxUpdatedAt = -1;
+            int contentHash = 1;
+            for (Blog blog : blogs) {
+                ids.put(blog.getId(), blog);
+                long updatedAt = toEpochMillis(blog);
+                maxUpdatedAt = Math.max(maxUpdatedAt, updatedAt);
+                contentHash = 31 * contentHash + (int) (blog.getId() ^ (blog.getId() >>> 32));
+                contentHash = 31 * contentHash + Long.hashCode(updatedAt);
+            }
+            this.published = List.copyOf(blogs);
+            this.publishedSummaries = blogs.stream()
+                .map(BlogSummary::from)
+                .toList();
+            this.featuredSummaries = this.publishedSummaries.stream()
+                .filter(summary -> Boolean.TRUE.equals(summary.getIsFeatured()))
+                .toList();
+            this.byId = Collections.unmodifiableMap(ids);
+            this.slugIndex = new BlogSlugIndex(this.published, slugGenerator);
+            // Strong validator: derived from row count, newest update and the (id, updatedAt) set,
+            // so it is identical across instances and restarts for the same data
+            this.etag = "\"" + blogs.size() + "-" + Long.toHexString(maxUpdatedAt) + "-"
+                + Integer.toHexString(contentHash) + "\"";
+            // Not the newest updatedAt: unpublishing or deleting a blog can lower that, and clients
+            // would then keep their copy. Instead the build time, kept while the data is unchanged
+            // and otherwise moved at least a second (HTTP-date resolution) past the previous one
+            if (previous == null) {
+                this.lastModified = System.currentTimeMillis();
+            } else if (previous.etag.equals(this.etag)) {
+                this.lastModified = previous.lastModified;
+            } else {
+                this.lastModified = Math.max(System.currentTimeMillis(), previous.lastModified + 1000);
+            }
+            this.objectMapper = objectMapper;
+            this.publishedJson = PreSerializedResponse.of(publishedSummaries, objectMapper);
+            this.featuredJson = PreSerializedResponse.of(featuredSummaries, objectMapper);
+        }
+
+        public List<BlogSummary> getPublishedSummaries() {
+            return publishedSummaries;
+        }
+
+        public List<BlogSummary> getFeaturedSummaries() {
+            return featuredSummaries;
+        }
+
+        public Blog findById(Long id) {
+            return byId.get(id);
+        }
+
+        /**
+         * Resolves a public slug against this snapshot's slug index, or null.
+         */
+        public Blog resolveSlug(String slug) {
+            return slugIndex.resolve(slug);
+        }
+
+        public PreSerializedResponse getPublishedJson() {
+            return publishedJson;
+        }
+
+        public PreSerializedResponse getFeaturedJson() {
+            return featuredJson;
+        }
+
+        /**
+         * Serialized detail body for a blog of this snapshot, built on first use.
+         */
+        public PreSerializedResponse getDetailJson(Blog blog) {
+            if (byId.get(blog.getId()) != blog) {
+                // Not this snapshot's instance (e.g. looked up in a newer snapshot); don't cache it here
+                return PreSerializedResponse.of(blog, objectMapper);
+            }
+            return detailJson.computeIfAbsent(blog.getId(), id -> PreSerializedResponse.of(blog, objectMapper));
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * When this instance's published list last changed, in epoch millis. Never goes backwards.
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    /**
+     * Strong ETag for a single blog's representation.
+     */
+    public static String etagOf(Blog blog) {
+        return "\"" + blog.getId() + "-" + Long.toHexString(toEpochMillis(blog)) + "\"";
+    }
+
+    public static long toEpochMillis(Blog blog) {
+        if (blog.getUpdatedAt() == null) {
+            return -1;
+        }
+        return blog.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
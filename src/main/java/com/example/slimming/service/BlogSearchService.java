@@ -0,0 +1,238 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Blog;
+import com.example.slimming.enums.BlogStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over published blogs, ranked with BM25.
+ * Title, tags, category, excerpt and content are split at every non-alphanumeric
+ * character and normalized like slugs (lowercase, accents stripped, [a-z0-9] words), with
+ * per-field weights folded into the term frequency. The index is updated
+ * incrementally as blogs are saved or deleted.
+ */
+@Service
+public class BlogSearchService {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final int MAX_LIMIT = 50;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float TAGS_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float EXCERPT_WEIGHT = 1.5f;
+    private static final float CONTENT_WEIGHT = 1.0f;
+
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+
+    @Autowired
+    private SlugGenerator slugGenerator;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (blog id -> weighted term frequency)
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    // blog id -> weighted term frequencies of that blog, needed to remove it again
+    private final Map<Long, Map<String, Float>> documents = new HashMap<>();
+    private final Map<Long, Float> documentLengths = new HashMap<>();
+    private double totalLength;
+
+    /**
+     * Replaces the whole index with the given blogs.
+     */
+    public void rebuild(Collection<Blog> blogs) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            documentLengths.clear();
+            totalLength = 0;
+            for (Blog blog : blogs) {
+                add(blog);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or re-indexes a blog; drafts are removed from the index.
+     */
+    public void index(Blog blog) {
+        // Tokenize outside the lock, the expensive part is string processing
+        Map<String, Float> terms = blog.getStatus() == BlogStatus.PUBLISHED ? analyze(blog) : null;
+        lock.writeLock().lock();
+        try {
+            removeDocument(blog.getId());
+            if (terms != null) {
+                addDocument(blog.getId(), terms);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long blogId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(blogId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Result count for a requested limit: the default when missing or not positive, at most the maximum.
+     */
+    public static int clampLimit(Integer limit) {
+        return limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * Returns ids of the best matching blogs, highest BM25 score first.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+            double averageLength = totalLength / documentCount;
+            for (String term : queryTerms.stream().distinct().toList()) {
+                Map<Long, Float> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                int documentFrequency = termPostings.size();
+                double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+                for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+                    double tf = posting.getValue();
+                    double lengthNorm = 1 - B + B * documentLengths.get(posting.getKey()) / averageLength;
+                    double score = idf * tf * (K1 + 1) / (tf + K1 * lengthNorm);
+                    scores.merge(posting.getKey(), score, Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Keep only the top results in a min-heap instead of sorting every match
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(limit + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<Long, Double> score : scores.entrySet()) {
+            top.offer(score);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            ids.add(top.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private void add(Blog blog) {
+        if (blog.getStatus() == BlogStatus.PUBLISHED) {
+            addDocument(blog.getId(), analyze(blog));
+        }
+    }
+
+    private void addDocument(Long blogId, Map<String, Float> terms) {
+        float length = 0;
+        for (Map.Entry<String, Float> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), key -> new HashMap<>()).put(blogId, term.getValue());
+            length += term.getValue();
+        }
+        documents.put(blogId, terms);
+        documentLengths.put(blogId, length);
+        totalLength += length;
+    }
+
+    private void removeDocument(Long blogId) {
+        Map<String, Float> terms = documents.remove(blogId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(blogId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= documentLengths.remove(blogId);
+    }
+
+    private Map<String, Float> analyze(Blog blog) {
+        Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, blog.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, blog.getTags(), TAGS_WEIGHT);
+        addTerms(terms, blog.getCategory(), CATEGORY_WEIGHT);
+        addTerms(terms, blog.getExcerpt(), EXCERPT_WEIGHT);
+        if (blog.getContent() != null) {
+            addTerms(terms, HTML_TAG.matcher(blog.getContent()).replaceAll(" "), CONTENT_WEIGHT);
+        }
+        return terms;
+    }
+
+    private void addTerms(Map<String, Float> terms, String text, float weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Float::sum);
+        }
+    }
+
+    // Same normalization as slugs: "Crème Brûlée, Tips!" -> [creme, brulee, tips]
+    private List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        // The slug generator drops punctuation, which would glue "fat.loss", "inch/loss" or tags
+        // written "a,b" into one word; every non-alphanumeric character is a word break instead
+        StringBuilder words = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            // Combining marks stay attached to their letter and are stripped by the normalization
+            boolean wordChar = Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK;
+            words.append(wordChar ? c : ' ');
+        }
+        String slug = slugGenerator.generateSlug(words.toString());
+        int start = 0;
+        while (start < slug.length()) {
+            int end = slug.indexOf('-', start);
+            if (end < 0) {
+                end = slug.length();
+            }
+            if (end > start) {
+                tokens.add(slug.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Blog;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Precomputed slug lookups for published blogs.
+ * Every fallback the public detail endpoint supports (exact slug, case-insensitive slug,
+ * slug generated from the title, hyphenated title) is resolved with hash lookups,
+ * so a miss costs the same as a hit and no slug is generated per request.
+ */
+final class BlogSlugIndex {
+
+    private final Map<String, Blog> exactSlugs = new HashMap<>();
+    private final Map<String, Blog> foldedSlugs = new HashMap<>();
+    private final Map<String, Blog> generatedSlugs = new HashMap<>();
+    private final Map<String, Blog> foldedTitles = new HashMap<>();
+
+    BlogSlugIndex(List<Blog> blogs, SlugGenerator slugGenerator) {
+        // putIfAbsent keeps the first match in listing order, as the old linear scans did
+        for (Blog blog : blogs) {
+            String slug = blog.getSlug();
+            if (slug != null && !slug.isEmpty()) {
+                exactSlugs.putIfAbsent(slug, blog);
+                foldedSlugs.putIfAbsent(fold(slug), blog);
+            }
+            if (blog.getTitle() != null) {
+                generatedSlugs.putIfAbsent(fold(slugGenerator.generateSlug(blog.getTitle())), blog);
+                foldedTitles.putIfAbsent(fold(blog.getTitle()), blog);
+            }
+        }
+    }
+
+    Blog resolve(String slug) {
+        Blog blog = exactSlugs.get(slug);
+        if (blog != null) {
+            return blog;
+        }
+        String folded = fold(slug);
+        blog = foldedSlugs.get(folded);
+        if (blog != null) {
+            return blog;
+        }
+        blog = generatedSlugs.get(folded);
+        if (blog != null) {
+            return blog;
+        }
+        // Last fallback: slug is the title with spaces replaced by hyphens
+        return foldedTitles.get(folded.replace('-', ' '));
+    }
+
+    private static String fold(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
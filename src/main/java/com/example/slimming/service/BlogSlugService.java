@@ -0,0 +1,89 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Blog;
+import com.example.slimming.repository.BlogRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Allocates unique blog slugs.
+ * All existing "base" / "base-N" slugs are fetched in one query and the next free
+ * suffix is picked in memory. The unique constraint on blogs.slug is the final
+ * arbiter: if a concurrent save claims the same slug first, allocation is retried.
+ */
+@Service
+public class BlogSlugService {
+
+    private static final int MAX_SAVE_ATTEMPTS = 5;
+    // Name of the unique constraint on blogs.slug, declared on Blog
+    private static final String SLUG_CONSTRAINT = "uk_blogs_slug";
+
+    @Autowired
+    private BlogRepository blogRepository;
+
+    /**
+     * Returns baseSlug if free, otherwise the first free baseSlug-N (N = 1, 2, ...).
+     *
+     * @param currentSlug slug currently stored for the blog being saved (null for new blogs);
+     *                    it counts as free so a blog can keep its own slug
+     */
+    public String allocateSlug(String baseSlug, String currentSlug) {
+        Set<String> taken = new HashSet<>(blogRepository.findSlugsByBase(baseSlug));
+        if (currentSlug != null) {
+            taken.remove(currentSlug);
+        }
+        if (!taken.contains(baseSlug)) {
+            return baseSlug;
+        }
+        int counter = 1;
+        while (taken.contains(baseSlug + "-" + counter)) {
+            counter++;
+        }
+        return baseSlug + "-" + counter;
+    }
+
+    /**
+     * Assigns a unique slug derived from baseSlug and saves the blog,
+     * re-allocating if another admin grabbed the same slug concurrently. Any other
+     * integrity violation is rethrown as is.
+     * An empty baseSlug falls back to {@link SlugGenerator#FALLBACK_SLUG} ("blog", "blog-1", ...).
+     */
+    public Blog saveWithUniqueSlug(Blog blog, String baseSlug, String currentSlug) {
+        if (baseSlug == null || baseSlug.isEmpty()) {
+            baseSlug = SlugGenerator.FALLBACK_SLUG;
+        }
+        for (int attempt = 1; ; attempt++) {
+            blog.setSlug(allocateSlug(baseSlug, currentSlug));
+            try {
+                return blogRepository.saveAndFlush(blog);
+            } catch (DataIntegrityViolationException e) {
+                if (!isSlugConflict(e) || attempt >= MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+                System.err.println("Slug conflict on '" + blog.getSlug() + "', retrying (attempt " + attempt + ")");
+            }
+        }
+    }
+
+    /**
+     * True if the violated constraint is the slug's unique key. MySQL reports it as
+     * "uk_blogs_slug" or, on newer servers, "blogs.uk_blogs_slug".
+     */
+    static boolean isSlugConflict(DataIntegrityViolationException e) {
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof ConstraintViolationException violation) {
+                String constraint = violation.getConstraintName();
+                return constraint != null && constraint.toLowerCase(Locale.ROOT).endsWith(SLUG_CONSTRAINT);
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+}
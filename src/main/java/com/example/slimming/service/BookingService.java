@@ -0,0 +1,44 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Booking;
+import com.example.slimming.enums.EmailType;
+import com.example.slimming.event.BookingCreatedEvent;
+import com.example.slimming.repository.BookingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class BookingService {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private CrmLeadQueue crmLeadQueue;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Saves the booking and queues its confirmation emails and TeleCRM lead in one
+     * transaction, so neither is lost for a saved booking nor sent for a rolled-back one.
+     * Side effects run after commit in {@link BookingSideEffectsListener}.
+     */
+    @Transactional
+    public Booking createBooking(Booking booking) {
+        Booking savedBooking = bookingRepository.save(booking);
+        emailOutboxService.enqueue(EmailType.BOOKING_CUSTOMER_CONFIRMATION, savedBooking.getEmail(), savedBooking.getId());
+        emailOutboxService.enqueue(EmailType.BOOKING_ADMIN_NOTIFICATION, emailService.getAdminEmail(), savedBooking.getId());
+        crmLeadQueue.upsert(savedBooking);
+        eventPublisher.publishEvent(new BookingCreatedEvent(savedBooking));
+        return savedBooking;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.slimming.service;
+
+import com.example.slimming.config.AsyncConfig;
+import com.example.slimming.event.BookingCreatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Runs booking side effects after the booking has committed, each on its own executor.
+ * Confirmation email outcomes are counted in booking.side_effects{effect=email, outcome};
+ * TeleCRM outcomes are counted per lead in telecrm.leads{outcome} by {@link LeadSyncService}.
+ */
+@Component
+public class BookingSideEffectsListener {
+
+    @Autowired
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Autowired
+    private LeadSyncService leadSyncService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The confirmation emails are already in the outbox; deliver this booking's emails now
+     * instead of waiting for the next poll. Failed sends stay in the outbox for retry.
+     * Each email's outcome (sent, failed, dead) is recorded.
+     */
+    @Async(AsyncConfig.BOOKING_EMAIL_EXECUTOR)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void sendConfirmationEmails(BookingCreatedEvent event) {
+        try {
+            for (String outcome : emailOutboxDispatcher.dispatchBooking(event.getBooking().getId())) {
+                record("email", outcome);
+            }
+        } catch (Exception e) {
+            record("email", "error");
+            System.err.println("Failed to dispatch booking emails for booking " + event.getBooking().getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The lead is already in the CRM queue; this only counts it towards the next
+     * size-triggered flush. Per-lead outcomes are counted by {@link LeadSyncService}.
+     */
+    @Async(AsyncConfig.TELECRM_EXECUTOR)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void syncTeleCrmLead(BookingCreatedEvent event) {
+        try {
+            leadSyncService.leadQueued();
+        } catch (Exception e) {
+            System.err.println("Failed to flush TeleCRM leads for booking " + event.getBooking().getId() + ": " + e.getMessage());
+        }
+    }
+
+    private void record(String effect, String outcome) {
+        meterRegistry.counter("booking.side_effects", "effect", effect, "outcome", outcome).increment();
+    }
+}
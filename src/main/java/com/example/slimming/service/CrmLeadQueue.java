@@ -0,0 +1,178 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Booking;
+import com.example.slimming.entity.CrmLead;
+import com.example.slimming.enums.CrmSyncStatus;
+import com.example.slimming.enums.LeadSyncStatus;
+import com.example.slimming.repository.BookingRepository;
+import com.example.slimming.repository.CrmLeadRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent queue of leads waiting for TeleCRM, keyed by phone number.
+ * Leads are claimed with SELECT ... FOR UPDATE SKIP LOCKED and retried with
+ * exponential backoff until they sync or run out of attempts. Outcomes are mirrored
+ * onto the booking's crmSyncStatus in the same transaction.
+ */
+@Service
+public class CrmLeadQueue {
+
+    @Autowired
+    private CrmLeadRepository leadRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TeleCRMService teleCRMService;
+
+    @Value("${app.telecrm.sync.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.telecrm.sync.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${app.telecrm.sync.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${app.telecrm.sync.stale-after-seconds:300}")
+    private long staleAfterSeconds;
+
+    /**
+     * Queues the booking's lead, replacing any lead still queued for the same phone.
+     * Joins the caller's transaction.
+     */
+    @Transactional
+    public void upsert(Booking booking) {
+        String phone = teleCRMService.formatPhoneNumber(booking.getPhone());
+        leadRepository.upsertPending(phone, booking.getId(), LocalDateTime.now());
+    }
+
+    public enum Backfill {
+        /** The booking's lead was (re)queued */
+        QUEUED,
+        /** A newer booking for the same phone already owns the lead; TeleCRM keeps one lead per phone */
+        SUPERSEDED,
+        /** The booking's lead had already reached TeleCRM */
+        ALREADY_SYNCED,
+        /** The booking's lead is already queued or being sent */
+        IN_FLIGHT
+    }
+
+    /**
+     * Queues a booking found unsynced by the reconciler, without ever replacing a newer
+     * booking's lead for the same phone. The phone's lead row is read under a row lock,
+     * so the outcome is decided from its state rather than from affected-row counts.
+     * Superseded and already-synced bookings are marked synced.
+     */
+    @Transactional
+    public Backfill backfill(Booking booking) {
+        LocalDateTime now = LocalDateTime.now();
+        String phone = teleCRMService.formatPhoneNumber(booking.getPhone());
+        CrmLead lead = leadRepository.lockByPhone(phone).orElse(null);
+        if (lead == null) {
+            // A concurrent booking may insert the row first; the upsert then keeps the newer booking
+            leadRepository.insertIfNewer(phone, booking.getId(), now);
+            return Backfill.QUEUED;
+        }
+        if (lead.getBookingId() > booking.getId()) {
+            bookingRepository.updateCrmSync(booking.getId(), CrmSyncStatus.SYNCED, now);
+            return Backfill.SUPERSEDED;
+        }
+        if (lead.getBookingId() < booking.getId() || lead.getStatus() == LeadSyncStatus.FAILED) {
+            lead.setBookingId(booking.getId());
+            lead.setStatus(LeadSyncStatus.PENDING);
+            lead.setAttempts(0);
+            lead.setNextAttemptAt(now);
+            lead.setLastError(null);
+            leadRepository.save(lead);
+            return Backfill.QUEUED;
+        }
+        if (lead.getStatus() == LeadSyncStatus.SYNCED) {
+            bookingRepository.updateCrmSync(booking.getId(), CrmSyncStatus.SYNCED, lead.getSyncedAt());
+            return Backfill.ALREADY_SYNCED;
+        }
+        return Backfill.IN_FLIGHT;
+    }
+
+    @Transactional
+    public List<CrmLead> claimBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        leadRepository.releaseStale(LeadSyncStatus.SENDING, LeadSyncStatus.PENDING, now.minusSeconds(staleAfterSeconds));
+        List<CrmLead> due = leadRepository.lockDueBatch(now, limit);
+        for (CrmLead lead : due) {
+            lead.setStatus(LeadSyncStatus.SENDING);
+        }
+        return leadRepository.saveAll(due);
+    }
+
+    /**
+     * Marks the lead synced, unless a newer booking for the phone arrived while it was being sent.
+     */
+    @Transactional
+    public void markSynced(Long id, Long bookingId) {
+        leadRepository.findById(id)
+            .filter(lead -> lead.getStatus() == LeadSyncStatus.SENDING && bookingId.equals(lead.getBookingId()))
+            .ifPresent(lead -> {
+                lead.setAttempts(lead.getAttempts() + 1);
+                lead.setStatus(LeadSyncStatus.SYNCED);
+                lead.setSyncedAt(LocalDateTime.now());
+                lead.setLastError(null);
+                bookingRepository.updateCrmSync(bookingId, CrmSyncStatus.SYNCED, lead.getSyncedAt());
+            });
+    }
+
+    /**
+     * Schedules a retry with exponential backoff, or gives up when retryable is false
+     * or the attempts are used up.
+     */
+    @Transactional
+    public void markFailed(Long id, Long bookingId, String error, boolean retryable) {
+        leadRepository.findById(id)
+            .filter(lead -> lead.getStatus() == LeadSyncStatus.SENDING && bookingId.equals(lead.getBookingId()))
+            .ifPresent(lead -> {
+                int attempts = lead.getAttempts() + 1;
+                lead.setAttempts(attempts);
+                lead.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+                if (!retryable || attempts >= maxAttempts) {
+                    lead.setStatus(LeadSyncStatus.FAILED);
+                    System.err.println("TeleCRM lead for " + lead.getPhone() + " failed after " + attempts + " attempts: " + error);
+                } else {
+                    lead.setStatus(LeadSyncStatus.PENDING);
+                    long backoff = Math.min(initialBackoffSeconds << Math.min(attempts - 1, 20), maxBackoffSeconds);
+                    lead.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff));
+                }
+                CrmSyncStatus bookingStatus = lead.getStatus() == LeadSyncStatus.FAILED ? CrmSyncStatus.FAILED : CrmSyncStatus.PENDING;
+                bookingRepository.updateCrmSync(bookingId, bookingStatus, LocalDateTime.now());
+            });
+    }
+
+    /**
+     * Puts the lead back without using up an attempt, e.g. while the TeleCRM circuit is open.
+     */
+    @Transactional
+    public void defer(Long id, Long bookingId, long delaySeconds) {
+        leadRepository.findById(id)
+            .filter(lead -> lead.getStatus() == LeadSyncStatus.SENDING && bookingId.equals(lead.getBookingId()))
+            .ifPresent(lead -> {
+                lead.setStatus(LeadSyncStatus.PENDING);
+                lead.setNextAttemptAt(LocalDateTime.now().plusSeconds(delaySeconds));
+            });
+    }
+
+    public Map<String, Long> getQueueDepth() {
+        Map<String, Long> depth = new LinkedHashMap<>();
+        for (LeadSyncStatus status : LeadSyncStatus.values()) {
+            depth.put(status.name(), leadRepository.countByStatus(status));
+        }
+        return depth;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Booking;
+import com.example.slimming.enums.CrmSyncStatus;
+import com.example.slimming.repository.BookingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Backfills bookings whose lead never reached TeleCRM.
+ * Periodically walks PENDING and FAILED bookings from the lookback window with a keyset
+ * scan over (crm_sync_status, id), re-queues them through {@link CrmLeadQueue} and drains
+ * each page with {@link LeadSyncService}, so they are pushed in parallel under the same
+ * concurrency limit, bulkhead and circuit breaker as new leads. Bookings are only picked
+ * up once they are older than the grace period and their last attempt is older than
+ * retry-after, so leads the queue is still working on are left alone. Bookings created
+ * before sync status was tracked are LEGACY and never reconciled. Outcomes are
+ * counted in telecrm.reconciled{outcome}.
+ */
+@Service
+public class CrmReconciliationService {
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private CrmLeadQueue leadQueue;
+
+    @Autowired
+    private LeadSyncService leadSyncService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.telecrm.reconcile.lookback-days:31}")
+    private int lookbackDays;
+
+    @Value("${app.telecrm.reconcile.page-size:200}")
+    private int pageSize;
+
+    @Value("${app.telecrm.reconcile.grace-minutes:15}")
+    private long graceMinutes;
+
+    @Value("${app.telecrm.reconcile.retry-after-minutes:360}")
+    private long retryAfterMinutes;
+
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+
+    /**
+     * Marks bookings from before the sync status column as LEGACY. Most of them were pushed
+     * by the old synchronous call, so re-queuing them would create duplicate leads.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initSyncStatus() {
+        int updated = bookingRepository.initCrmSyncStatus(CrmSyncStatus.LEGACY);
+        if (updated > 0) {
+            System.out.println("Marked " + updated + " existing bookings as legacy (not reconciled with TeleCRM)");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.telecrm.reconcile.interval-ms:900000}",
+        initialDelayString = "${app.telecrm.reconcile.initial-delay-ms:60000}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Runs one reconciliation pass.
+     *
+     * @return bookings per outcome, or an empty map if a pass is already running
+     */
+    public Map<String, Integer> reconcile() {
+        if (!reconcileLock.tryLock()) {
+            return Map.of();
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime createdBefore = now.minusMinutes(graceMinutes);
+            LocalDateTime attemptedBefore = now.minusMinutes(retryAfterMinutes);
+            // Ids grow with createdAt, so the window starts just before the first booking in it
+            Long startAfterId = bookingRepository.findFirstByCreatedAtGreaterThanEqualOrderByCreatedAtAscIdAsc(now.minusDays(lookbackDays))
+                .map(booking -> booking.getId() - 1)
+                .orElse(null);
+
+            Map<CrmLeadQueue.Backfill, Integer> outcomes = new EnumMap<>(CrmLeadQueue.Backfill.class);
+            if (startAfterId != null) {
+                for (CrmSyncStatus status : List.of(CrmSyncStatus.PENDING, CrmSyncStatus.FAILED)) {
+                    reconcile(status, startAfterId, createdBefore, attemptedBefore, outcomes);
+                }
+            }
+
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (CrmLeadQueue.Backfill outcome : CrmLeadQueue.Backfill.values()) {
+                result.put(outcome.name(), outcomes.getOrDefault(outcome, 0));
+            }
+            if (!outcomes.isEmpty()) {
+                System.out.println("TeleCRM reconciliation: " + result);
+            }
+            return result;
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void reconcile(CrmSyncStatus status, Long afterId, LocalDateTime createdBefore, LocalDateTime attemptedBefore,
+                           Map<CrmLeadQueue.Backfill, Integer> outcomes) {
+        List<Booking> page;
+        do {
+            page = bookingRepository.findCrmReconcileCandidates(status, afterId, createdBefore, attemptedBefore,
+                PageRequest.of(0, pageSize));
+            int queued = 0;
+            for (Booking booking : page) {
+                CrmLeadQueue.Backfill outcome;
+                try {
+                    outcome = leadQueue.backfill(booking);
+                } catch (Exception e) {
+                    // Leave it for the next pass
+                    System.err.println("Failed to re-queue booking " + booking.getId() + " for TeleCRM: " + e.getMessage());
+                    continue;
+                }
+                outcomes.merge(outcome, 1, Integer::sum);
+                meterRegistry.counter("telecrm.reconciled", "outcome", outcome.name().toLowerCase()).increment();
+                if (outcome == CrmLeadQueue.Backfill.QUEUED) {
+                    queued++;
+                }
+            }
+            if (queued > 0) {
+                // Drain before queuing the next page so a large backlog never piles up in the queue
+                leadSyncService.flush();
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize && !Thread.currentThread().isInterrupted());
+    }
+}
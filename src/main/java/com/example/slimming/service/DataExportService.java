@@ -0,0 +1,226 @@
+package com.example.slimming.service;
+
+import com.example.slimming.enums.ExportFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams admin exports (CSV or NDJSON) straight from a JDBC cursor to the response.
+ * The query runs with fetch size Integer.MIN_VALUE so MySQL sends rows one at a time
+ * instead of buffering the whole result set; each row is written and forgotten, so
+ * heap use is constant regardless of table size.
+ */
+@Service
+public class DataExportService {
+
+    private static final String SUBSCRIBERS_SQL =
+        "SELECT id, email, is_active, subscribed_at FROM newsletter_subscribers ORDER BY id";
+    private static final String BOOKINGS_SQL =
+        "SELECT id, name, email, phone, service_name, date, time, message, created_at, is_read FROM bookings ORDER BY id";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    void init() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    public void exportSubscribers(ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        export(SUBSCRIBERS_SQL, format, gzip, out);
+    }
+
+    public void exportBookings(ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        export(BOOKINGS_SQL, format, gzip, out);
+    }
+
+    private void export(String sql, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        if (format == ExportFormat.CSV) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+            query(sql, new CsvRowWriter(writer));
+            writer.flush();
+        } else {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(target);
+            // One object per line; the newline is written explicitly after each row
+            generator.setRootValueSeparator(null);
+            query(sql, new NdjsonRowWriter(generator));
+            generator.flush();
+        }
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+    }
+
+    private void query(String sql, RowWriter rowWriter) throws IOException {
+        try {
+            streamingJdbcTemplate.query(sql, rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away mid-download; stop reading from the cursor
+            throw e.getCause();
+        }
+    }
+
+    private abstract static class RowWriter {
+        private String[] columns;
+
+        void write(ResultSet rs) throws SQLException, IOException {
+            if (columns == null) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                columns = new String[metaData.getColumnCount()];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = metaData.getColumnLabel(i + 1);
+                }
+                start(columns);
+            }
+            writeRow(columns, rs);
+        }
+
+        abstract void start(String[] columns) throws IOException;
+
+        abstract void writeRow(String[] columns, ResultSet rs) throws SQLException, IOException;
+    }
+
+    /**
+     * True if a spreadsheet could evaluate the value as a formula (leading =, +, -, @, tab or CR).
+     * Phone numbers and signed numbers such as "+91 98765 43210" or "-42" are left alone:
+     * digits, spaces, parentheses and hyphens cannot form a formula, and a ' prefix would corrupt them.
+     */
+    static boolean needsFormulaGuard(String value) {
+        if (value.isEmpty() || "=+-@\t\r".indexOf(value.charAt(0)) < 0) {
+            return false;
+        }
+        return !isNumericLiteral(value);
+    }
+
+    // Matches ^[+-]?[\d\s()-]+$ with at least one digit
+    private static boolean isNumericLiteral(String value) {
+        int start = value.charAt(0) == '+' || value.charAt(0) == '-' ? 1 : 0;
+        boolean digit = false;
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c != ' ' && (c < '\t' || c > '\r') && c != '(' && c != ')' && c != '-') {
+                return false;
+            }
+        }
+        return digit;
+    }
+
+    private static final class CsvRowWriter extends RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        void start(String[] columns) throws IOException {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(columns[i]);
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        void writeRow(String[] columns, ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = rs.getObject(i + 1);
+                if (value instanceof Timestamp timestamp) {
+                    value = timestamp.toLocalDateTime();
+                }
+                if (value != null) {
+                    writeField(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        // RFC 4180 quoting; values that a spreadsheet would evaluate as a formula are prefixed with '
+        private void writeField(String value) throws IOException {
+            boolean formula = needsFormulaGuard(value);
+            boolean quote = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            if (formula) {
+                writer.write('\'');
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+    }
+
+    private static final class NdjsonRowWriter extends RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        void start(String[] columns) {
+        }
+
+        @Override
+        void writeRow(String[] columns, ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < columns.length; i++) {
+                Object value = rs.getObject(i + 1);
+                if (value instanceof Timestamp timestamp) {
+                    value = timestamp.toLocalDateTime();
+                }
+                generator.writeFieldName(columns[i]);
+                generator.writeObject(value);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+    }
+}
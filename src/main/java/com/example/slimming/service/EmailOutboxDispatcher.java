@@ -0,0 +1,185 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Blog;
+import com.example.slimming.entity.Booking;
+import com.example.slimming.entity.EmailOutbox;
+import com.example.slimming.enums.EmailType;
+import com.example.slimming.repository.BlogRepository;
+import com.example.slimming.repository.BookingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Delivers due rows of the email outbox.
+ * Each poll claims batches until nothing is due; welcome emails in a batch are
+ * coalesced into {@link MailBatchSender} sends. Rows are touched right before they
+ * are sent so a slow batch is not released as stale. A failed send is rescheduled by
+ * {@link EmailOutboxService#markFailed(Long, String)}, a send whose booking or blog
+ * no longer exists is dead-lettered straight away. Outcomes are counted in
+ * email.outbox.deliveries{type, outcome}.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+    // Welcome emails are touched and sent this many at a time, which keeps each chunk well
+    // inside stale-after-seconds even when every send runs into SMTP timeouts
+    private static final int WELCOME_TOUCH_CHUNK = 10;
+
+    @Autowired
+    private EmailOutboxService outboxService;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private MailBatchSender mailBatchSender;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BlogRepository blogRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval-ms:5000}")
+    public void dispatch() {
+        List<EmailOutbox> batch;
+        do {
+            batch = outboxService.claimBatch(batchSize);
+            List<EmailOutbox> welcomes = new ArrayList<>();
+            for (EmailOutbox entry : batch) {
+                if (entry.getType() == EmailType.WELCOME) {
+                    welcomes.add(entry);
+                } else {
+                    deliver(entry);
+                }
+            }
+            if (!welcomes.isEmpty()) {
+                deliverWelcomes(welcomes);
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Delivers the due confirmation emails of one booking now, leaving the rest of the
+     * outbox to the poll.
+     *
+     * @return outcome of each email: "sent", "failed" (rescheduled) or "dead"
+     */
+    public List<String> dispatchBooking(Long bookingId) {
+        List<EmailOutbox> entries = outboxService.claimForReference(bookingId,
+            List.of(EmailType.BOOKING_CUSTOMER_CONFIRMATION, EmailType.BOOKING_ADMIN_NOTIFICATION));
+        List<String> outcomes = new ArrayList<>(entries.size());
+        for (EmailOutbox entry : entries) {
+            outcomes.add(deliver(entry));
+        }
+        return outcomes;
+    }
+
+    private String deliver(EmailOutbox entry) {
+        try {
+            outboxService.touch(List.of(entry.getId()));
+            switch (entry.getType()) {
+                case BOOKING_CUSTOMER_CONFIRMATION -> {
+                    Optional<Booking> booking = bookingRepository.findById(entry.getReferenceId());
+                    if (booking.isEmpty()) {
+                        return dead(entry, "Booking " + entry.getReferenceId() + " not found");
+                    }
+                    emailService.sendBookingConfirmationToCustomer(booking.get());
+                }
+                case BOOKING_ADMIN_NOTIFICATION -> {
+                    Optional<Booking> booking = bookingRepository.findById(entry.getReferenceId());
+                    if (booking.isEmpty()) {
+                        return dead(entry, "Booking " + entry.getReferenceId() + " not found");
+                    }
+                    emailService.sendBookingNotificationToAdmin(booking.get());
+                }
+                case WELCOME -> emailService.sendWelcomeEmail(entry.getRecipient());
+                case BLOG_NOTIFICATION -> {
+                    Optional<Blog> blog = blogRepository.findById(entry.getReferenceId());
+                    if (blog.isEmpty()) {
+                        return dead(entry, "Blog " + entry.getReferenceId() + " not found");
+                    }
+                    emailService.sendBlogNotification(blog.get(), entry.getRecipient(), "outbox." + entry.getId());
+                }
+            }
+            outboxService.markSent(entry.getId());
+            return record(entry, "sent");
+        } catch (Exception e) {
+            return failed(entry, e);
+        }
+    }
+
+    /**
+     * Welcome emails queued since the last poll go out together, a chunk per SMTP connection.
+     */
+    private void deliverWelcomes(List<EmailOutbox> entries) {
+        List<MimeMessage> messages = new ArrayList<>(entries.size());
+        Map<MimeMessage, EmailOutbox> entriesByMessage = new IdentityHashMap<>();
+        Set<String> recipients = new HashSet<>();
+        for (EmailOutbox entry : entries) {
+            // Same address claimed twice in one batch (concurrent signups): send once
+            if (!recipients.add(entry.getRecipient())) {
+                dead(entry, "Duplicate welcome email");
+                continue;
+            }
+            try {
+                MimeMessage message = emailService.createWelcomeMessage(entry.getRecipient());
+                messages.add(message);
+                entriesByMessage.put(message, entry);
+            } catch (Exception e) {
+                failed(entry, e);
+            }
+        }
+        Map<MimeMessage, Exception> failures = new IdentityHashMap<>();
+        for (int from = 0; from < messages.size(); from += WELCOME_TOUCH_CHUNK) {
+            List<MimeMessage> chunk = messages.subList(from, Math.min(from + WELCOME_TOUCH_CHUNK, messages.size()));
+            outboxService.touch(chunk.stream().map(message -> entriesByMessage.get(message).getId()).toList());
+            failures.putAll(mailBatchSender.send(chunk));
+        }
+        for (MimeMessage message : messages) {
+            EmailOutbox entry = entriesByMessage.get(message);
+            Exception failure = failures.get(message);
+            if (failure == null) {
+                outboxService.markSent(entry.getId());
+                record(entry, "sent");
+            } else {
+                failed(entry, failure);
+            }
+        }
+    }
+
+    private String failed(EmailOutbox entry, Exception e) {
+        System.err.println("Failed to send " + entry.getType() + " email to " + entry.getRecipient()
+            + " (attempt " + (entry.getAttempts() + 1) + "): " + e.getMessage());
+        outboxService.markFailed(entry.getId(), e.getMessage());
+        return record(entry, "failed");
+    }
+
+    private String dead(EmailOutbox entry, String reason) {
+        outboxService.markDead(entry.getId(), reason);
+        return record(entry, "dead");
+    }
+
+    private String record(EmailOutbox entry, String outcome) {
+        meterRegistry.counter("email.outbox.deliveries", "type", entry.getType().name(), "outcome", outcome).increment();
+        return outcome;
+    }
+}
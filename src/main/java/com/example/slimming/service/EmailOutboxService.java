@@ -0,0 +1,201 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.EmailOutbox;
+import com.example.slimming.enums.EmailType;
+import com.example.slimming.enums.OutboxStatus;
+import com.example.slimming.repository.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Transactional email outbox.
+ * Emails are recorded in email_outbox in the same transaction as the business row
+ * (booking, subscriber) and delivered later by {@link EmailOutboxDispatcher}, with
+ * exponential backoff between attempts and dead-lettering once attempts run out.
+ */
+@Service
+public class EmailOutboxService {
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Value("${app.email.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${app.email.outbox.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${app.email.outbox.stale-after-seconds:300}")
+    private long staleAfterSeconds;
+
+    @Value("${app.email.welcome.dedupe-window-minutes:60}")
+    private long welcomeDedupeWindowMinutes;
+
+    /**
+     * Records an email to send. Joins the caller's transaction so the email exists
+     * if and only if the caller's data was committed.
+     */
+    @Transactional
+    public EmailOutbox enqueue(EmailType type, String recipient, Long referenceId) {
+        EmailOutbox entry = new EmailOutbox();
+        entry.setType(type);
+        entry.setRecipient(recipient);
+        entry.setReferenceId(referenceId);
+        return outboxRepository.save(entry);
+    }
+
+    /**
+     * Queues a welcome email unless one was already queued for the address within the
+     * dedupe window (e.g. a double-submitted form or an unsubscribe/resubscribe).
+     * The row carries a unique dedupe key of type, address and window bucket and is inserted
+     * with INSERT IGNORE, so concurrent sign-ups for one address queue a single email; the
+     * window check additionally catches a repeat just across a bucket boundary.
+     *
+     * @return false if the email was dropped as a duplicate
+     */
+    @Transactional
+    public boolean enqueueWelcome(String recipient, Long subscriberId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (outboxRepository.existsByTypeAndRecipientAndCreatedAtAfter(EmailType.WELCOME, recipient,
+                now.minusMinutes(welcomeDedupeWindowMinutes))) {
+            return false;
+        }
+        long bucket = System.currentTimeMillis() / 60_000 / Math.max(1, welcomeDedupeWindowMinutes);
+        // Addresses compare case-insensitively, like the recipient column
+        String dedupeKey = EmailType.WELCOME.name() + ":" + recipient.toLowerCase(Locale.ROOT) + ":" + bucket;
+        return outboxRepository.insertIfAbsent(EmailType.WELCOME.name(), recipient, subscriberId, dedupeKey, now) > 0;
+    }
+
+    /**
+     * Records emails whose first delivery attempt already failed, scheduled for retry.
+     */
+    @Transactional
+    public void enqueueRetries(EmailType type, Map<String, String> errorsByRecipient, Long referenceId) {
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plusSeconds(backoffSeconds(1));
+        List<EmailOutbox> entries = errorsByRecipient.entrySet().stream().map(failed -> {
+            EmailOutbox entry = new EmailOutbox();
+            entry.setType(type);
+            entry.setRecipient(failed.getKey());
+            entry.setReferenceId(referenceId);
+            entry.setAttempts(1);
+            entry.setLastError(truncate(failed.getValue()));
+            entry.setNextAttemptAt(nextAttemptAt);
+            return entry;
+        }).toList();
+        outboxRepository.saveAll(entries);
+    }
+
+    /**
+     * Claims up to limit due emails with SELECT ... FOR UPDATE SKIP LOCKED and marks them
+     * PROCESSING, so concurrent dispatchers (or instances) never pick the same row.
+     */
+    @Transactional
+    public List<EmailOutbox> claimBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepository.releaseStale(OutboxStatus.PROCESSING, OutboxStatus.PENDING, now.minusSeconds(staleAfterSeconds));
+        List<EmailOutbox> due = outboxRepository.lockDueBatch(now, limit);
+        for (EmailOutbox entry : due) {
+            entry.setStatus(OutboxStatus.PROCESSING);
+        }
+        return outboxRepository.saveAll(due);
+    }
+
+    /**
+     * Claims the due emails of the given types for one reference id (e.g. a booking's
+     * confirmation emails), skipping rows another dispatcher already holds.
+     */
+    @Transactional
+    public List<EmailOutbox> claimForReference(Long referenceId, List<EmailType> types) {
+        List<String> typeNames = types.stream().map(EmailType::name).toList();
+        List<EmailOutbox> due = outboxRepository.lockDueForReference(referenceId, typeNames, LocalDateTime.now());
+        for (EmailOutbox entry : due) {
+            entry.setStatus(OutboxStatus.PROCESSING);
+        }
+        return outboxRepository.saveAll(due);
+    }
+
+    /**
+     * Marks claimed emails as still in flight right before they are sent. A claimed batch is
+     * sent one email at a time, and each send can take several SMTP timeouts, so without
+     * this the tail of a slow batch could pass stale-after-seconds and be sent twice.
+     */
+    @Transactional
+    public void touch(List<Long> ids) {
+        if (!ids.isEmpty()) {
+            outboxRepository.touch(ids, OutboxStatus.PROCESSING, LocalDateTime.now());
+        }
+    }
+
+    @Transactional
+    public void markSent(Long id) {
+        outboxRepository.findById(id).ifPresent(entry -> {
+            entry.setAttempts(entry.getAttempts() + 1);
+            entry.setStatus(OutboxStatus.SENT);
+            entry.setSentAt(LocalDateTime.now());
+            entry.setLastError(null);
+        });
+    }
+
+    /**
+     * Schedules the next attempt with exponential backoff, or dead-letters the email.
+     */
+    @Transactional
+    public void markFailed(Long id, String error) {
+        outboxRepository.findById(id).ifPresent(entry -> {
+            int attempts = entry.getAttempts() + 1;
+            entry.setAttempts(attempts);
+            entry.setLastError(truncate(error));
+            if (attempts >= maxAttempts) {
+                entry.setStatus(OutboxStatus.DEAD);
+                System.err.println("Email " + entry.getType() + " to " + entry.getRecipient()
+                    + " dead-lettered after " + attempts + " attempts: " + error);
+            } else {
+                entry.setStatus(OutboxStatus.PENDING);
+                entry.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoffSeconds(attempts)));
+            }
+        });
+    }
+
+    /**
+     * Dead-letters an email that can never succeed (e.g. its booking was deleted).
+     */
+    @Transactional
+    public void markDead(Long id, String error) {
+        outboxRepository.findById(id).ifPresent(entry -> {
+            entry.setStatus(OutboxStatus.DEAD);
+            entry.setLastError(truncate(error));
+        });
+    }
+
+    public Map<String, Long> getQueueDepth() {
+        Map<String, Long> depth = new LinkedHashMap<>();
+        for (OutboxStatus status : OutboxStatus.values()) {
+            depth.put(status.name(), outboxRepository.countByStatus(status));
+        }
+        return depth;
+    }
+
+    private long backoffSeconds(int attempts) {
+        // 30s, 60s, 120s, ... capped
+        long backoff = initialBackoffSeconds << Math.min(attempts - 1, 20);
+        return Math.min(backoff, maxBackoffSeconds);
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+}
@@ -2,8 +2,6 @@ package com.example.slimming.service;
 
 import com.example.slimming.entity.Blog;
 import com.example.slimming.entity.Booking;
-import com.example.slimming.entity.NewsletterSubscriber;
-import com.example.slimming.repository.NewsletterSubscriberRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -11,9 +9,10 @@ import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeUtility;
 import java.io.UnsupportedEncodingException;
-import java.util.List;
 
 @Service
 public class EmailService {
@@ -21,9 +20,6 @@ public class EmailService {
     @Autowired
     private JavaMailSender mailSender;
 
-    @Autowired
-    private NewsletterSubscriberRepository subscriberRepository;
-
     @Value("${spring.mail.username:noreply@slimming.com}")
     private String fromEmail;
 
@@ -35,44 +31,39 @@ public class EmailService {
 
     private static final String FROM_NAME = "Slimming";
 
-    public void sendBlogNotification(Blog blog) {
-        List<NewsletterSubscriber> activeSubscribers = subscriberRepository.findByIsActiveTrue();
-        
-        if (activeSubscribers.isEmpty()) {
-            return;
-        }
-
-        String blogUrl = frontendUrl + "/blog/" + blog.getId();
-        
-        for (NewsletterSubscriber subscriber : activeSubscribers) {
-            try {
-                sendBlogEmail(subscriber.getEmail(), blog, blogUrl);
-            } catch (Exception e) {
-                System.err.println("Failed to send email to " + subscriber.getEmail() + ": " + e.getMessage());
-                // Continue with other subscribers even if one fails
-            }
-        }
+    // Blog notifications are fanned out by NewsletterFanoutService in batches over shared connections
+    public String buildBlogUrl(Blog blog) {
+        return frontendUrl + "/blog/" + blog.getId();
     }
 
-    private void sendBlogEmail(String toEmail, Blog blog, String blogUrl) throws MessagingException {
+    /**
+     * Renders the blog newsletter once; per-recipient messages are then created from the result.
+     */
+    public RenderedNewsletter renderBlogNewsletter(Blog blog, String blogUrl) throws MessagingException {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(fromEmail, FROM_NAME);
-            helper.setTo(toEmail);
-            helper.setSubject("New Blog Post: " + blog.getTitle());
-
-            String htmlContent = buildEmailTemplate(blog, blogUrl);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
+            InternetAddress from = new InternetAddress(fromEmail, FROM_NAME, "UTF-8");
+            String subject = MimeUtility.encodeText("New Blog Post: " + blog.getTitle(), "UTF-8", null);
+            String listUnsubscribe = "<mailto:" + contactEmail + "?subject=Unsubscribe>";
+            return new RenderedNewsletter(mailSender, from, subject, listUnsubscribe,
+                buildEmailTemplate(blog, blogUrl));
         } catch (UnsupportedEncodingException e) {
             throw new MessagingException("Encoding error: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Sends the blog newsletter to a single recipient; used when retrying failed fan-out sends.
+     */
+    public void sendBlogNotification(Blog blog, String email, String trackingId) throws MessagingException {
+        RenderedNewsletter newsletter = renderBlogNewsletter(blog, buildBlogUrl(blog));
+        mailSender.send(newsletter.createMessage(email, trackingId));
+    }
+
     private String buildEmailTemplate(Blog blog, String blogUrl) {
+        String trackedUrl = blogUrl + (blogUrl.contains("?") ? "&" : "?")
+                + "utm_source=newsletter&utm_medium=email&rid={{TRACKING_ID}}";
+        // Admin-entered fields must not be parsed as slot markers
+        String title = RenderedNewsletter.escapeMarkers(blog.getTitle());
         return "<!DOCTYPE html>" +
                 "<html>" +
                 "<head>" +
@@ -92,22 +83,30 @@ public class EmailService {
                 "<h1>New Blog Post Available!</h1>" +
                 "</div>" +
                 "<div class='content'>" +
-                "<h2>" + blog.getTitle() + "</h2>" +
-                "<p><strong>Category:</strong> " + blog.getCategory() + "</p>" +
-                "<img src='" + blog.getImage() + "' alt='" + blog.getTitle() + "' class='blog-image' />" +
-                "<p>" + blog.getExcerpt() + "</p>" +
-                "<a href='" + blogUrl + "' class='button'>Read Full Article</a>" +
+                "<h2>" + title + "</h2>" +
+                "<p><strong>Category:</strong> " + RenderedNewsletter.escapeMarkers(blog.getCategory()) + "</p>" +
+                "<img src='" + RenderedNewsletter.escapeMarkers(blog.getImage()) + "' alt='" + title + "' class='blog-image' />" +
+                "<p>" + RenderedNewsletter.escapeMarkers(blog.getExcerpt()) + "</p>" +
+                "<a href='" + trackedUrl + "' class='button'>Read Full Article</a>" +
                 "</div>" +
                 "<div class='footer'>" +
                 "<p>Thank you for subscribing to our newsletter!</p>" +
-                "<p>If you no longer wish to receive these emails, please contact us.</p>" +
+                "<p>This email was sent to {{RECIPIENT_EMAIL}}. If you no longer wish to receive these emails, " +
+                "<a href='mailto:" + contactEmail + "?subject=Unsubscribe%20{{RECIPIENT_EMAIL_URL}}'>let us know</a>.</p>" +
                 "</div>" +
                 "</div>" +
                 "</body>" +
                 "</html>";
     }
 
-    public void sendWelcomeEmail(String email) {
+    public void sendWelcomeEmail(String email) throws MessagingException {
+        mailSender.send(createWelcomeMessage(email));
+    }
+
+    /**
+     * Builds the welcome email without sending it, so several can share one SMTP connection.
+     */
+    public MimeMessage createWelcomeMessage(String email) throws MessagingException {
         try {
             // Use MimeMessage to support display name
             MimeMessage message = mailSender.createMimeMessage();
@@ -118,24 +117,20 @@ public class EmailService {
             helper.setSubject("Welcome to Our Newsletter!");
             helper.setText("Thank you for subscribing to our newsletter! You'll be the first to know about new blog posts, beauty tips, and exclusive offers.", false);
             
-            mailSender.send(message);
-        } catch (MessagingException | UnsupportedEncodingException e) {
-            System.err.println("Failed to send welcome email to " + email + ": " + e.getMessage());
-        } catch (Exception e) {
-            System.err.println("Failed to send welcome email to " + email + ": " + e.getMessage());
+            return message;
+        } catch (UnsupportedEncodingException e) {
+            throw new MessagingException("Encoding error: " + e.getMessage(), e);
         }
     }
 
-    public void sendBookingConfirmation(Booking booking) {
-        try {
-            sendBookingConfirmationToCustomer(booking);
-            sendBookingNotificationToAdmin(booking);
-        } catch (Exception e) {
-            System.err.println("Failed to send booking emails: " + e.getMessage());
-        }
+    /**
+     * Admin recipient of booking notifications (same as the sender address).
+     */
+    public String getAdminEmail() {
+        return fromEmail;
     }
 
-    private void sendBookingConfirmationToCustomer(Booking booking) throws MessagingException {
+    public void sendBookingConfirmationToCustomer(Booking booking) throws MessagingException {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
@@ -153,7 +148,7 @@ public class EmailService {
         }
     }
 
-    private void sendBookingNotificationToAdmin(Booking booking) throws MessagingException {
+    public void sendBookingNotificationToAdmin(Booking booking) throws MessagingException {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
@@ -0,0 +1,155 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Booking;
+import com.example.slimming.entity.CrmLead;
+import com.example.slimming.repository.BookingRepository;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes queued leads from {@link CrmLeadQueue} to TeleCRM in micro-batches.
+ * A flush runs every flush-interval, or as soon as batch-size new leads have been
+ * queued. Each flush claims due leads and posts them to /autoupdatelead in parallel
+ * over the pooled HTTP client (the endpoint takes one lead per request). When the
+ * TeleCRM circuit breaker is open or its bulkhead is full, leads are deferred without
+ * spending an attempt and the flush stops early. Outcomes are counted in
+ * telecrm.leads{outcome}.
+ */
+@Service
+public class LeadSyncService {
+
+    @Autowired
+    private CrmLeadQueue leadQueue;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TeleCRMService teleCRMService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.telecrm.sync.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.telecrm.sync.concurrency:4}")
+    private int concurrency;
+
+    @Value("${app.telecrm.sync.deferral-seconds:30}")
+    private long deferralSeconds;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicInteger queuedSinceFlush = new AtomicInteger();
+    private ExecutorService senders;
+
+    @PostConstruct
+    void start() {
+        senders = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("telecrm-sync-"));
+    }
+
+    @PreDestroy
+    void stop() {
+        senders.shutdownNow();
+    }
+
+    /**
+     * Called after a lead has been committed to the queue; flushes early once a full batch is waiting.
+     */
+    public void leadQueued() {
+        if (queuedSinceFlush.incrementAndGet() >= batchSize) {
+            flush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.telecrm.sync.flush-interval-ms:2000}")
+    public void flush() {
+        // A flush already in progress will pick up whatever is due
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            queuedSinceFlush.set(0);
+            List<CrmLead> batch;
+            int deferred;
+            do {
+                batch = leadQueue.claimBatch(batchSize);
+                deferred = sendAll(batch);
+                // TeleCRM is rejecting calls; leave the rest queued for later flushes
+            } while (batch.size() == batchSize && deferred == 0 && !Thread.currentThread().isInterrupted());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * @return number of leads deferred because TeleCRM calls were not permitted
+     */
+    private int sendAll(List<CrmLead> leads) {
+        List<Future<Boolean>> sends = new ArrayList<>(leads.size());
+        for (CrmLead lead : leads) {
+            sends.add(senders.submit(() -> send(lead)));
+        }
+        int deferred = 0;
+        for (Future<Boolean> pending : sends) {
+            try {
+                if (!pending.get()) {
+                    deferred++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return deferred;
+            } catch (ExecutionException e) {
+                System.err.println("TeleCRM lead sync task failed: " + e.getCause().getMessage());
+            }
+        }
+        return deferred;
+    }
+
+    /**
+     * @return false if the lead was deferred (circuit open or bulkhead full)
+     */
+    private boolean send(CrmLead lead) {
+        Optional<Booking> booking = bookingRepository.findById(lead.getBookingId());
+        if (booking.isEmpty()) {
+            leadQueue.markFailed(lead.getId(), lead.getBookingId(), "Booking " + lead.getBookingId() + " not found", false);
+            record("failed");
+            return true;
+        }
+        try {
+            teleCRMService.createLead(booking.get());
+            leadQueue.markSynced(lead.getId(), lead.getBookingId());
+            record("synced");
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            leadQueue.defer(lead.getId(), lead.getBookingId(), deferralSeconds);
+            record("deferred");
+            return false;
+        } catch (Exception e) {
+            leadQueue.markFailed(lead.getId(), lead.getBookingId(), e.getMessage(), true);
+            record("error");
+        }
+        return true;
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter("telecrm.leads", "outcome", outcome).increment();
+    }
+}
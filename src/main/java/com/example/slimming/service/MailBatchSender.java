@@ -0,0 +1,129 @@
+package com.example.slimming.service;
+
+import com.example.slimming.dto.MailTransportStats;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends many messages over few SMTP connections.
+ * Each batch goes through JavaMailSender.send(MimeMessage...), which authenticates and
+ * negotiates STARTTLS once and then reuses that connection for every message in the batch.
+ * Callers sending in parallel (e.g. the newsletter workers) each hold one such session,
+ * so the worker count bounds the number of open SMTP connections.
+ */
+@Service
+public class MailBatchSender {
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${app.mail.batch-size:50}")
+    private int batchSize;
+
+    private final LongAdder messagesSent = new LongAdder();
+    private final LongAdder messagesFailed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sends the messages in connection-sized batches.
+     *
+     * @return failed messages mapped to their cause; empty when everything was accepted
+     */
+    public Map<MimeMessage, Exception> send(List<MimeMessage> messages) {
+        Map<MimeMessage, Exception> failures = new IdentityHashMap<>();
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            List<MimeMessage> batch = messages.subList(from, Math.min(from + batchSize, messages.size()));
+            int failedBefore = failures.size();
+            long start = System.nanoTime();
+            try {
+                mailSender.send(batch.toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                // Per-message failures; the rest of the batch was delivered on the same connection
+                for (Map.Entry<Object, Exception> failed : e.getFailedMessages().entrySet()) {
+                    if (failed.getKey() instanceof MimeMessage message) {
+                        failures.put(message, failed.getValue());
+                    }
+                }
+                if (failures.size() == failedBefore) {
+                    batch.forEach(message -> failures.put(message, e));
+                }
+            } catch (MailException e) {
+                // Connection or authentication failure: nothing in this batch was sent
+                batch.forEach(message -> failures.put(message, e));
+            } finally {
+                int failed = failures.size() - failedBefore;
+                batches.increment();
+                messagesSent.add(batch.size() - failed);
+                messagesFailed.add(failed);
+                sendNanos.add(System.nanoTime() - start);
+            }
+        }
+        return failures;
+    }
+
+    public MailTransportStats getStats() {
+        long sent = messagesSent.sum();
+        long failed = messagesFailed.sum();
+        long total = sent + failed;
+        double seconds = sendNanos.sum() / 1_000_000_000.0;
+        return new MailTransportStats(
+            sent,
+            failed,
+            batches.sum(),
+            seconds > 0 ? sent / seconds : 0,
+            total > 0 ? seconds * 1000 / total : 0);
+    }
+
+    /**
+     * True if the failure is a transient SMTP rejection (4xx reply, e.g. "421 4.7.0 Try
+     * again later" or "451 4.7.1 Rate limited"), i.e. the receiving side is deferring mail.
+     * The reply code comes from the SMTP exceptions in the failure's chain; a rejected
+     * recipient is reported as a SendFailedException whose next exceptions carry the codes.
+     */
+    public static boolean isDeferral(Throwable failure) {
+        int depth = 0;
+        Throwable current = failure;
+        while (current != null && depth++ < 10) {
+            int returnCode = returnCode(current);
+            if (returnCode >= 400 && returnCode < 500) {
+                return true;
+            }
+            Throwable next = current instanceof MessagingException messagingException
+                ? messagingException.getNextException() : null;
+            current = next != null ? next : current.getCause();
+        }
+        return false;
+    }
+
+    private static int returnCode(Throwable failure) {
+        if (failure instanceof SMTPSendFailedException sendFailed) {
+            return sendFailed.getReturnCode();
+        }
+        if (failure instanceof SMTPAddressFailedException addressFailed) {
+            return addressFailed.getReturnCode();
+        }
+        if (failure instanceof SMTPSenderFailedException senderFailed) {
+            return senderFailed.getReturnCode();
+        }
+        return -1;
+    }
+}
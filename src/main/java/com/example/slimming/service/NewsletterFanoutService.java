@@ -0,0 +1,520 @@
+package com.example.slimming.service;
+
+import com.example.slimming.dto.NotificationJobStatus;
+import com.example.slimming.dto.SubscriberAddress;
+import com.example.slimming.entity.Blog;
+import com.example.slimming.entity.NewsletterCampaign;
+import com.example.slimming.enums.CampaignStatus;
+import com.example.slimming.enums.EmailType;
+import com.example.slimming.repository.BlogRepository;
+import com.example.slimming.repository.NewsletterCampaignRepository;
+import com.example.slimming.repository.NewsletterSubscriberRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends new-blog notifications to all active subscribers in the background.
+ * Publishing only queues a job; a coordinator thread groups the subscribers by
+ * recipient domain and assembles batches round-robin across domains, taking a
+ * domain's recipients in runs (up to its burst) once its token bucket has saved up for them (gmail.com
+ * and friends throttle senders per domain). Batches are also capped by a global token bucket
+ * and handed to a worker pool whose concurrency adapts with AIMD: a batch that
+ * hits 4xx deferrals halves both the concurrency and the deferring domain's rate,
+ * clean batches grow them back. Each batch is sent over a single SMTP connection
+ * by {@link MailBatchSender}; recipients whose send failed are handed to the email
+ * outbox for retries.
+ * Each notification is a persisted {@link NewsletterCampaign}. Subscriber ids and
+ * emails (nothing else) are read in id-ordered pages of checkpoint-size, so memory
+ * does not grow with the list; once a page is fully sent the campaign row
+ * records its last subscriber id and counters, so after a restart an unfinished
+ * campaign resumes with the next page (at most one page is sent twice). Failed
+ * recipients of a page are handed to the outbox only once its checkpoint is saved, so a
+ * page that is re-sent after a crash is not also retried from the outbox. A campaign is
+ * claimed by one instance with a conditional update and kept alive by a heartbeat;
+ * another instance only takes it over once it is released or the heartbeat stops. Every
+ * later write is conditional on still being the owner, so an instance that lost a
+ * campaign to a takeover stops at its next checkpoint instead of overwriting the new owner's progress.
+ * Campaigns can be polled by id for progress.
+ */
+@Service
+public class NewsletterFanoutService {
+
+    private static final List<CampaignStatus> UNFINISHED =
+        List.of(CampaignStatus.QUEUED, CampaignStatus.RUNNING, CampaignStatus.INTERRUPTED);
+    // How long the coordinator sleeps when every pending domain is out of tokens
+    private static final long DOMAIN_WAIT_MILLIS = 50;
+    private static final double MIN_DOMAIN_RATE = 0.1;
+
+    @Autowired
+    private NewsletterSubscriberRepository subscriberRepository;
+
+    @Autowired
+    private NewsletterCampaignRepository campaignRepository;
+
+    @Autowired
+    private BlogRepository blogRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private MailBatchSender mailBatchSender;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Value("${app.newsletter.fanout.concurrency:4}")
+    private int concurrency;
+
+    @Value("${app.newsletter.fanout.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${app.newsletter.fanout.max-per-second:10}")
+    private double maxPerSecond;
+
+    @Value("${app.newsletter.fanout.domain-max-per-second:2}")
+    private double domainMaxPerSecond;
+
+    // e.g. "gmail.com:5,outlook.com:3"; domains not listed use domain-max-per-second
+    @Value("${app.newsletter.fanout.domain-rates:}")
+    private String domainRates;
+
+    // Largest number of messages sent at once; 0 means one second's worth of max-per-second
+    @Value("${app.newsletter.fanout.burst:0}")
+    private double burst;
+
+    // Largest run of one domain's recipients; 0 means one second's worth of that domain's rate
+    @Value("${app.newsletter.fanout.domain-burst:0}")
+    private double domainBurst;
+
+    @Value("${app.newsletter.campaign.checkpoint-size:200}")
+    private int checkpointSize;
+
+    @Value("${app.newsletter.campaign.stale-after-seconds:300}")
+    private long campaignStaleAfterSeconds;
+
+    // Identifies this instance as a campaign owner
+    private final String instanceId = UUID.randomUUID().toString();
+    // Campaigns this instance has claimed and not yet finished (running or waiting for the coordinator)
+    private final Set<Long> owned = ConcurrentHashMap.newKeySet();
+
+    // Live counters of campaigns being sent; finished campaigns are read from the table
+    private final Map<Long, CampaignRun> running = new ConcurrentHashMap<>();
+
+    private ExecutorService coordinator;
+    private ExecutorService workers;
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+    private TokenBucket rateLimiter;
+    private final Map<String, Double> domainRateCeilings = new HashMap<>();
+    // Kept across jobs so a domain that deferred us recently starts slow
+    private final Map<String, TokenBucket> domainBuckets = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void start() {
+        coordinator = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("newsletter-fanout-"));
+        maxConcurrency = Math.max(concurrency, maxConcurrency);
+        workers = Executors.newFixedThreadPool(maxConcurrency, new CustomizableThreadFactory("newsletter-send-"));
+        concurrencyLimit = new AdaptiveConcurrencyLimit(concurrency, 1, maxConcurrency);
+        for (String entry : domainRates.split(",")) {
+            int colon = entry.indexOf(':');
+            if (colon > 0) {
+                domainRateCeilings.put(entry.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                    Double.parseDouble(entry.substring(colon + 1).trim()));
+            }
+        }
+        rateLimiter = new TokenBucket(maxPerSecond, burst > 0 ? burst : maxPerSecond);
+    }
+
+    @PreDestroy
+    void stop() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Resumes campaigns that were queued or in progress when the application stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void resumeUnfinishedCampaigns() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minusSeconds(campaignStaleAfterSeconds);
+        for (NewsletterCampaign campaign : campaignRepository.findByStatusInOrderByIdAsc(UNFINISHED)) {
+            if (owned.contains(campaign.getId())
+                    || campaignRepository.claim(campaign.getId(), instanceId, CampaignStatus.RUNNING, UNFINISHED, now, staleBefore) == 0) {
+                // Ours already, or another instance is sending it
+                continue;
+            }
+            campaign.setOwner(instanceId);
+            campaign.setStatus(CampaignStatus.RUNNING);
+            Optional<Blog> blog = blogRepository.findById(campaign.getBlogId());
+            if (blog.isEmpty()) {
+                campaign.setStatus(CampaignStatus.FAILED);
+                campaign.setFinishedAt(LocalDateTime.now());
+                saveOwned(campaign);
+                continue;
+            }
+            System.out.println("Resuming newsletter campaign " + campaign.getId()
+                + " after subscriber " + campaign.getLastSubscriberId());
+            owned.add(campaign.getId());
+            coordinator.submit(() -> run(campaign, blog.get()));
+        }
+    }
+
+    /**
+     * Keeps this instance's campaigns claimed, and takes over campaigns whose owner died.
+     */
+    @Scheduled(fixedDelayString = "${app.newsletter.campaign.heartbeat-interval-ms:60000}",
+        initialDelayString = "${app.newsletter.campaign.heartbeat-interval-ms:60000}")
+    public void heartbeat() {
+        if (!owned.isEmpty()) {
+            campaignRepository.heartbeat(List.copyOf(owned), instanceId, LocalDateTime.now());
+        }
+        resumeUnfinishedCampaigns();
+    }
+
+    /**
+     * Queues a notification for the blog and returns immediately.
+     *
+     * @return campaign id that can be passed to {@link #getJobStatus(String)}
+     */
+    public String startBlogNotification(Blog blog) {
+        NewsletterCampaign campaign = new NewsletterCampaign();
+        campaign.setBlogId(blog.getId());
+        campaign.setOwner(instanceId);
+        campaign.setTotal((int) subscriberRepository.countByIsActiveTrue());
+        NewsletterCampaign savedCampaign = campaignRepository.save(campaign);
+        owned.add(savedCampaign.getId());
+        coordinator.submit(() -> run(savedCampaign, blog));
+        return savedCampaign.getId().toString();
+    }
+
+    public Optional<NotificationJobStatus> getJobStatus(String jobId) {
+        Long campaignId;
+        try {
+            campaignId = Long.valueOf(jobId);
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        CampaignRun run = running.get(campaignId);
+        if (run != null) {
+            return Optional.of(run.toStatus());
+        }
+        return campaignRepository.findById(campaignId).map(campaign -> new NotificationJobStatus(
+            campaign.getId().toString(), campaign.getBlogId(), campaign.getStatus().name(), campaign.getTotal(),
+            campaign.getSent(), campaign.getFailed(), campaign.getDeferred(), campaign.getCreatedAt(),
+            campaign.getFinishedAt()));
+    }
+
+    private void run(NewsletterCampaign campaign, Blog blog) {
+        CampaignRun job = new CampaignRun(campaign);
+        running.put(campaign.getId(), job);
+        campaign.setStatus(CampaignStatus.RUNNING);
+        boolean ownershipLost = false;
+        try {
+            if (!saveOwned(campaign)) {
+                throw new OwnershipLostException();
+            }
+            // Render the newsletter once; workers only fill in the per-recipient slots
+            RenderedNewsletter newsletter = emailService.renderBlogNewsletter(blog, emailService.buildBlogUrl(blog));
+
+            Long cursor = campaign.getLastSubscriberId();
+            List<SubscriberAddress> page;
+            do {
+                page = subscriberRepository.findActiveAddressesAfter(cursor, PageRequest.of(0, checkpointSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                sendPage(job, newsletter, page);
+                cursor = page.get(page.size() - 1).getId();
+                checkpoint(campaign, job, cursor);
+                // The page is now covered by the checkpoint and will not be re-sent
+                queueRetries(job);
+            } while (page.size() == checkpointSize);
+            campaign.setStatus(CampaignStatus.COMPLETED);
+        } catch (OwnershipLostException e) {
+            // Another instance took it over after our heartbeat went stale; it resumes from
+            // the last checkpoint, so this instance must not write the campaign again
+            ownershipLost = true;
+            System.err.println("Newsletter campaign " + campaign.getId() + " was taken over by another instance, stopping");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Left resumable: the next start picks up after the last checkpoint
+            campaign.setStatus(CampaignStatus.INTERRUPTED);
+        } catch (Exception e) {
+            System.err.println("Newsletter campaign " + campaign.getId() + " failed: " + e.getMessage());
+            campaign.setStatus(CampaignStatus.FAILED);
+        } finally {
+            if (!ownershipLost) {
+                finish(campaign, job);
+            }
+            running.remove(campaign.getId());
+            owned.remove(campaign.getId());
+        }
+    }
+
+    /**
+     * Sends one page of subscribers and waits until every batch of it has completed.
+     */
+    private void sendPage(CampaignRun job, RenderedNewsletter newsletter, List<SubscriberAddress> page)
+            throws InterruptedException {
+        // Per-domain queues, visited round-robin so one big domain cannot starve the rest
+        Map<String, ArrayDeque<SubscriberAddress>> pendingByDomain = new LinkedHashMap<>();
+        for (SubscriberAddress subscriber : page) {
+            pendingByDomain.computeIfAbsent(domainOf(subscriber.getEmail()), domain -> new ArrayDeque<>())
+                .add(subscriber);
+        }
+
+        int batchSize = mailBatchSender.getBatchSize();
+        if (rateLimiter.getRate() > 0) {
+            // A batch larger than the burst would send faster than the configured rate
+            batchSize = Math.min(batchSize, Math.max(1, (int) rateLimiter.getCapacity()));
+        }
+        while (!pendingByDomain.isEmpty()) {
+            List<SubscriberAddress> batch = nextBatch(pendingByDomain, batchSize);
+            if (batch.isEmpty()) {
+                Thread.sleep(DOMAIN_WAIT_MILLIS);
+                continue;
+            }
+            rateLimiter.acquire(batch.size());
+            concurrencyLimit.acquire();
+            workers.execute(() -> {
+                boolean deferred = false;
+                try {
+                    deferred = sendBatch(job, newsletter, batch);
+                } finally {
+                    concurrencyLimit.release(deferred);
+                }
+            });
+        }
+        concurrencyLimit.awaitIdle();
+    }
+
+    /**
+     * Hands the failed recipients of checkpointed pages to the outbox for retries.
+     */
+    private void queueRetries(CampaignRun job) {
+        if (job.pageFailures.isEmpty()) {
+            return;
+        }
+        Map<String, String> failures = new HashMap<>(job.pageFailures);
+        job.pageFailures.keySet().removeAll(failures.keySet());
+        try {
+            emailOutboxService.enqueueRetries(EmailType.BLOG_NOTIFICATION, failures, job.blogId);
+        } catch (Exception e) {
+            System.err.println("Failed to queue blog email retries: " + e.getMessage());
+        }
+    }
+
+    private void finish(NewsletterCampaign campaign, CampaignRun job) {
+        if (campaign.getStatus() == CampaignStatus.INTERRUPTED) {
+            // Release it so the next instance can resume it without waiting for the heartbeat to go stale
+            campaign.setOwner(null);
+        } else {
+            campaign.setFinishedAt(LocalDateTime.now());
+        }
+        try {
+            checkpoint(campaign, job, campaign.getLastSubscriberId());
+        } catch (OwnershipLostException e) {
+            System.err.println("Newsletter campaign " + campaign.getId() + " was taken over by another instance");
+            return;
+        } catch (Exception e) {
+            System.err.println("Failed to save newsletter campaign " + campaign.getId() + ": " + e.getMessage());
+        }
+        if (campaign.getStatus() != CampaignStatus.INTERRUPTED) {
+            // A finished or failed campaign is not resumed, so its last page will not be re-sent either
+            queueRetries(job);
+        }
+    }
+
+    /**
+     * Saves the progress of a page.
+     *
+     * @throws OwnershipLostException if another instance has taken the campaign over
+     */
+    private void checkpoint(NewsletterCampaign campaign, CampaignRun job, Long lastSubscriberId) {
+        campaign.setLastSubscriberId(lastSubscriberId);
+        campaign.setSent(job.sent.get());
+        campaign.setFailed(job.failed.get());
+        campaign.setDeferred(job.deferred.get());
+        if (!saveOwned(campaign)) {
+            throw new OwnershipLostException();
+        }
+    }
+
+    // Every write after the claim is conditional on this instance still being the owner
+    private boolean saveOwned(NewsletterCampaign campaign) {
+        return campaignRepository.saveIfOwner(campaign.getId(), instanceId, campaign.getStatus(), campaign.getOwner(),
+            campaign.getLastSubscriberId(), campaign.getSent(), campaign.getFailed(), campaign.getDeferred(),
+            campaign.getFinishedAt(), LocalDateTime.now()) > 0;
+    }
+
+    /**
+     * Fills a batch with whole runs of recipients per domain, visiting domains round-robin.
+     * A domain contributes only once its bucket holds enough tokens for everything it can
+     * add (the rest of the batch or all it has left in the page, capped at its burst), so a
+     * rate-limited domain waits and sends a run over one connection instead of a trickle of
+     * one or two messages per connection.
+     */
+    private List<SubscriberAddress> nextBatch(Map<String, ArrayDeque<SubscriberAddress>> pendingByDomain,
+                                                 int batchSize) {
+        List<SubscriberAddress> batch = new ArrayList<>(batchSize);
+        List<Map.Entry<String, ArrayDeque<SubscriberAddress>>> served = new ArrayList<>();
+        Iterator<Map.Entry<String, ArrayDeque<SubscriberAddress>>> domains = pendingByDomain.entrySet().iterator();
+        while (domains.hasNext() && batch.size() < batchSize) {
+            Map.Entry<String, ArrayDeque<SubscriberAddress>> domain = domains.next();
+            ArrayDeque<SubscriberAddress> pending = domain.getValue();
+            TokenBucket bucket = domainBucket(domain.getKey());
+            int take = Math.min(batchSize - batch.size(), pending.size());
+            if (bucket.getRate() > 0) {
+                take = Math.min(take, Math.max(1, (int) bucket.getCapacity()));
+            }
+            if (bucket.tryAcquire(take)) {
+                for (int i = 0; i < take; i++) {
+                    batch.add(pending.poll());
+                }
+                domains.remove();
+                if (!pending.isEmpty()) {
+                    served.add(domain);
+                }
+            }
+        }
+        // Domains that were just served go to the back of the rotation
+        for (Map.Entry<String, ArrayDeque<SubscriberAddress>> domain : served) {
+            pendingByDomain.put(domain.getKey(), domain.getValue());
+        }
+        return batch;
+    }
+
+    /**
+     * @return true if any recipient in the batch was deferred with a 4xx reply
+     */
+    private boolean sendBatch(CampaignRun job, RenderedNewsletter newsletter, List<SubscriberAddress> subscribers) {
+        List<MimeMessage> messages = new ArrayList<>(subscribers.size());
+        Map<MimeMessage, String> recipients = new IdentityHashMap<>();
+        Map<String, String> errorsByRecipient = new HashMap<>();
+        for (SubscriberAddress subscriber : subscribers) {
+            try {
+                // Tracking id ties a click back to the campaign and subscriber
+                String trackingId = job.id + "." + subscriber.getId();
+                MimeMessage message = newsletter.createMessage(subscriber.getEmail(), trackingId);
+                messages.add(message);
+                recipients.put(message, subscriber.getEmail());
+            } catch (Exception e) {
+                errorsByRecipient.put(subscriber.getEmail(), e.getMessage());
+                System.err.println("Failed to build email to " + subscriber.getEmail() + ": " + e.getMessage());
+            }
+        }
+        Map<MimeMessage, Exception> failures = mailBatchSender.send(messages);
+        job.sent.addAndGet(messages.size() - failures.size());
+        // Continue with other subscribers even if some fail
+        Set<String> deferringDomains = new HashSet<>();
+        for (Map.Entry<MimeMessage, Exception> failure : failures.entrySet()) {
+            String recipient = recipients.get(failure.getKey());
+            System.err.println("Failed to send blog email: " + failure.getValue().getMessage());
+            errorsByRecipient.put(recipient, failure.getValue().getMessage());
+            if (MailBatchSender.isDeferral(failure.getValue())) {
+                job.deferred.incrementAndGet();
+                deferringDomains.add(domainOf(recipient));
+            }
+        }
+        adjustDomainRates(subscribers, deferringDomains);
+        if (!errorsByRecipient.isEmpty()) {
+            job.failed.addAndGet(errorsByRecipient.size());
+            // Retried through the outbox once the page is checkpointed
+            job.pageFailures.putAll(errorsByRecipient);
+        }
+        return !deferringDomains.isEmpty();
+    }
+
+    // AIMD per domain: halve the rate of domains that deferred, nudge the others back up
+    private void adjustDomainRates(List<SubscriberAddress> subscribers, Set<String> deferringDomains) {
+        Set<String> domains = new HashSet<>();
+        for (SubscriberAddress subscriber : subscribers) {
+            domains.add(domainOf(subscriber.getEmail()));
+        }
+        for (String domain : domains) {
+            TokenBucket bucket = domainBucket(domain);
+            double ceiling = domainRateCeiling(domain);
+            synchronized (bucket) {
+                if (deferringDomains.contains(domain)) {
+                    bucket.setRate(Math.max(MIN_DOMAIN_RATE, bucket.getRate() / 2));
+                } else if (bucket.getRate() < ceiling) {
+                    bucket.setRate(Math.min(ceiling, bucket.getRate() + ceiling / 10));
+                }
+            }
+        }
+    }
+
+    private TokenBucket domainBucket(String domain) {
+        return domainBuckets.computeIfAbsent(domain, key -> {
+            double rate = domainRateCeiling(key);
+            return new TokenBucket(rate, domainBurst > 0 ? domainBurst : rate);
+        });
+    }
+
+    private double domainRateCeiling(String domain) {
+        return domainRateCeilings.getOrDefault(domain, domainMaxPerSecond);
+    }
+
+    private static String domainOf(String email) {
+        int at = email.lastIndexOf('@');
+        return at >= 0 ? email.substring(at + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static final class OwnershipLostException extends RuntimeException {
+    }
+
+    private static final class CampaignRun {
+        private final NewsletterCampaign campaign;
+        private final Long id;
+        private final Long blogId;
+        private final AtomicInteger sent;
+        private final AtomicInteger failed;
+        private final AtomicInteger deferred;
+        // Failed recipients of the page being sent
+        private final Map<String, String> pageFailures = new ConcurrentHashMap<>();
+
+        private CampaignRun(NewsletterCampaign campaign) {
+            this.campaign = campaign;
+            this.id = campaign.getId();
+            this.blogId = campaign.getBlogId();
+            // Resumed campaigns continue counting from their last checkpoint
+            this.sent = new AtomicInteger(campaign.getSent());
+            this.failed = new AtomicInteger(campaign.getFailed());
+            this.deferred = new AtomicInteger(campaign.getDeferred());
+        }
+
+        private NotificationJobStatus toStatus() {
+            return new NotificationJobStatus(id.toString(), blogId, campaign.getStatus().name(), campaign.getTotal(),
+                sent.get(), failed.get(), deferred.get(), campaign.getCreatedAt(), campaign.getFinishedAt());
+        }
+    }
+}
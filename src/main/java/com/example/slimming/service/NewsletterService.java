@@ -0,0 +1,50 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.NewsletterSubscriber;
+import com.example.slimming.repository.NewsletterSubscriberRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Service
+public class NewsletterService {
+
+    @Autowired
+    private NewsletterSubscriberRepository subscriberRepository;
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Saves an (re)activated subscriber and queues the welcome email in the same transaction.
+     * The email is sent by the outbox dispatcher, coalesced with other pending welcomes.
+     */
+    @Transactional
+    public NewsletterSubscriber subscribe(NewsletterSubscriber subscriber) {
+        NewsletterSubscriber savedSubscriber = subscriberRepository.save(subscriber);
+        emailOutboxService.enqueueWelcome(savedSubscriber.getEmail(), savedSubscriber.getId());
+        return savedSubscriber;
+    }
+
+    /**
+     * Hands every active subscriber to the consumer in id order without loading them all:
+     * rows come from a streaming cursor and are detached once consumed.
+     */
+    @Transactional(readOnly = true)
+    public void forEachActiveSubscriber(Consumer<NewsletterSubscriber> consumer) {
+        try (Stream<NewsletterSubscriber> subscribers = subscriberRepository.streamActive()) {
+            subscribers.forEach(subscriber -> {
+                consumer.accept(subscriber);
+                entityManager.detach(subscriber);
+            });
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.slimming.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A JSON response body serialized once, kept both as plain and gzip-compressed bytes.
+ * Controllers write these arrays directly instead of re-running Jackson per request.
+ */
+public final class PreSerializedResponse {
+
+    private final byte[] json;
+    private final byte[] gzip;
+
+    private PreSerializedResponse(byte[] json, byte[] gzip) {
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    public static PreSerializedResponse of(Object body, ObjectMapper objectMapper) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new PreSerializedResponse(json, gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize response: " + e.getMessage(), e);
+        }
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.slimming.service;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A newsletter rendered once per blog and stamped out per recipient.
+ * The HTML is split at its per-recipient slots when rendered, so each message only
+ * concatenates the shared static segments with the recipient's values; sender address
+ * and encoded subject header are built once as well.
+ */
+public final class RenderedNewsletter {
+
+    public enum Slot {
+        /** Recipient address, HTML-escaped for display */
+        RECIPIENT_EMAIL,
+        /** Recipient address, URL-encoded for mailto/unsubscribe links */
+        RECIPIENT_EMAIL_URL,
+        /** Per-recipient tracking id, URL-encoded */
+        TRACKING_ID
+    }
+
+    private static final String SLOT_START = "{{";
+    private static final String SLOT_END = "}}";
+
+    private final JavaMailSender mailSender;
+    private final InternetAddress from;
+    private final String encodedSubject;
+    private final String listUnsubscribe;
+    private final String[] segments;
+    private final Slot[] slots;
+    private final int staticLength;
+
+    /**
+     * @param html template containing slot markers such as {{RECIPIENT_EMAIL}}; any other
+     *             "{{" in the text must be escaped (see {@link #escapeMarkers})
+     * @throws IllegalArgumentException on an unknown or unterminated marker
+     */
+    public RenderedNewsletter(JavaMailSender mailSender, InternetAddress from, String encodedSubject,
+                              String listUnsubscribe, String html) {
+        this.mailSender = mailSender;
+        this.from = from;
+        this.encodedSubject = encodedSubject;
+        this.listUnsubscribe = listUnsubscribe;
+
+        List<String> parsedSegments = new ArrayList<>();
+        List<Slot> parsedSlots = new ArrayList<>();
+        int position = 0;
+        int length = 0;
+        while (true) {
+            int start = html.indexOf(SLOT_START, position);
+            if (start < 0) {
+                break;
+            }
+            int end = html.indexOf(SLOT_END, start + SLOT_START.length());
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated newsletter slot marker at index " + start);
+            }
+            parsedSegments.add(html.substring(position, start));
+            length += start - position;
+            parsedSlots.add(slotOf(html.substring(start + SLOT_START.length(), end)));
+            position = end + SLOT_END.length();
+        }
+        parsedSegments.add(html.substring(position));
+        length += html.length() - position;
+
+        this.segments = parsedSegments.toArray(new String[0]);
+        this.slots = parsedSlots.toArray(new Slot[0]);
+        this.staticLength = length;
+    }
+
+    public String renderHtml(String recipientEmail, String trackingId) {
+        String emailHtml = escapeHtml(recipientEmail);
+        String emailUrl = URLEncoder.encode(recipientEmail, StandardCharsets.UTF_8);
+        String tracking = URLEncoder.encode(trackingId, StandardCharsets.UTF_8);
+
+        StringBuilder html = new StringBuilder(staticLength + slots.length * 64);
+        for (int i = 0; i < slots.length; i++) {
+            html.append(segments[i]);
+            switch (slots[i]) {
+                case RECIPIENT_EMAIL -> html.append(emailHtml);
+                case RECIPIENT_EMAIL_URL -> html.append(emailUrl);
+                case TRACKING_ID -> html.append(tracking);
+            }
+        }
+        html.append(segments[segments.length - 1]);
+        return html.toString();
+    }
+
+    public MimeMessage createMessage(String recipientEmail, String trackingId) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        message.setFrom(from);
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(recipientEmail));
+        // Already RFC 2047 encoded once for the whole campaign
+        message.setHeader("Subject", encodedSubject);
+        if (listUnsubscribe != null) {
+            message.setHeader("List-Unsubscribe", listUnsubscribe);
+        }
+        message.setText(renderHtml(recipientEmail, trackingId), "UTF-8", "html");
+        return message;
+    }
+
+    /**
+     * Makes content pasted into a template (blog title, excerpt, ...) safe from being read as a
+     * slot marker; braces are written as character references, which render the same.
+     */
+    public static String escapeMarkers(String text) {
+        return String.valueOf(text).replace("{", "&#123;").replace("}", "&#125;");
+    }
+
+    private static Slot slotOf(String name) {
+        for (Slot slot : Slot.values()) {
+            if (slot.name().equals(name)) {
+                return slot;
+            }
+        }
+        throw new IllegalArgumentException("Unknown newsletter slot marker {{" + name + "}}");
+    }
+
+    private static String escapeHtml(String text) {
+        if (text == null) return "";
+        return text.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;")
+                .replace("'", "&#39;");
+    }
+}
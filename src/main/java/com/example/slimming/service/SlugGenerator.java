@@ -0,0 +1,65 @@
+package com.example.slimming.service;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Generates URL-friendly slugs from blog titles.
+ * Equivalent to lowercasing, stripping diacritics, dropping anything outside [a-z0-9],
+ * and joining the remaining words with single hyphens, but done in a single pass
+ * without regular expressions. Pure-ASCII titles skip normalization entirely.
+ */
+@Component
+public class SlugGenerator {
+
+    // Base for titles without any letters or digits (emoji-only, non-Latin), which slug to ""
+    public static final String FALLBACK_SLUG = "blog";
+
+    public String generateSlug(String title) {
+        if (title == null || title.isEmpty()) {
+            return "";
+        }
+
+        // Decompose accented characters (é -> e + combining mark) so the base letter survives
+        String source = isAscii(title)
+            ? title
+            : Normalizer.normalize(title.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+
+        StringBuilder slug = new StringBuilder(source.length());
+        boolean pendingHyphen = false;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                // Collapse runs of spaces/hyphens into one hyphen, never leading
+                if (pendingHyphen && slug.length() > 0) {
+                    slug.append('-');
+                }
+                pendingHyphen = false;
+                slug.append(c);
+            } else if (c == '-' || isWhitespace(c)) {
+                pendingHyphen = true;
+            }
+            // Everything else (punctuation, combining marks, other scripts) is dropped
+        }
+        return slug.toString();
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Same set as the regex \s class: space, \t, \n, \u000B, \f, \r
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.slimming.service;
+
+import com.example.slimming.dto.TeleCrmLeadPayload;
+import com.example.slimming.entity.Booking;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Builds TeleCRM lead payloads from bookings.
+ * Lookup tables and the JSON writer are built once; per lead only the formatted field
+ * strings, the payload record and the serialized bytes are allocated (no maps, no
+ * split/regex intermediates).
+ */
+public final class TeleCrmPayloadBuilder {
+
+    // Must match TeleCRM's dropdown value
+    private static final String LEAD_SOURCE = "sashaslimmingweb";
+
+    /**
+     * Booking form service values -> TeleCRM CLIENT CONCERNS dropdown values.
+     *
+     * IMPORTANT: CLIENT CONCERNS is a dropdown, so values must match TeleCRM's options EXACTLY
+     * (case-sensitive, including spaces and special characters). If TeleCRM shows "N/A",
+     * check the dropdown options in TeleCRM and update this table.
+     */
+    private static final Map<String, String> CLIENT_CONCERNS = Map.of(
+        "consultation", "slimming-Consultation",
+        "fat-reduction", "slimming-fat-reduction",
+        "inch-loss", "slimming-inch-loss",
+        "muscle-toning", "slimming-muscle-toning",
+        "skin-tightening", "slimming-skin-tightening",
+        "surgical-sculpting", "slimming-surgical-sculpting"
+    );
+
+    private static final DateTimeFormatter TELECRM_DATE_FORMAT =
+        DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    // Payload types are fully annotated, so a private mapper keeps the wire format
+    // independent of the application's ObjectMapper settings
+    private static final ObjectWriter PAYLOAD_WRITER = new ObjectMapper().writerFor(TeleCrmLeadPayload.class);
+
+    private TeleCrmPayloadBuilder() {
+    }
+
+    public static TeleCrmLeadPayload build(Booking booking) {
+        String note = isBlank(booking.getMessage()) ? null : booking.getMessage();
+        return new TeleCrmLeadPayload(new TeleCrmLeadPayload.Fields(
+            booking.getName(),
+            formatPhoneNumber(booking.getPhone()), // Lead ID field
+            booking.getEmail(),
+            formatAppointmentDateTime(booking.getDate(), booking.getTime()),
+            note,
+            LEAD_SOURCE,
+            LEAD_SOURCE,
+            LEAD_SOURCE,
+            clientConcerns(booking.getServiceName())
+        ));
+    }
+
+    public static byte[] toJson(TeleCrmLeadPayload payload) {
+        try {
+            return PAYLOAD_WRITER.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize TeleCRM payload: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Formats phone number to include country code if missing
+     * TeleCRM expects phone with country code (e.g., +91...)
+     * Whitespace, '-', '(' and ')' are stripped in a single pass.
+     */
+    public static String formatPhoneNumber(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        // Same bounds as String.trim()
+        int start = 0;
+        int end = phone.length();
+        while (start < end && phone.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && phone.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return phone;
+        }
+
+        // Leave room for a "+91" prefix
+        char[] buffer = new char[end - start + 3];
+        int length = 0;
+        boolean allDigits = true;
+        for (int i = start; i < end; i++) {
+            char c = phone.charAt(i);
+            if (isSeparator(c)) {
+                continue;
+            }
+            allDigits &= c >= '0' && c <= '9';
+            buffer[3 + length++] = c;
+        }
+        if (length == 0) {
+            return phone;
+        }
+        char first = buffer[3];
+
+        // If already starts with +, return as is
+        if (first == '+') {
+            return new String(buffer, 3, length);
+        }
+        // If starts with 91 (India country code without +), add +
+        if (first == '9' && length >= 12 && buffer[4] == '1') {
+            buffer[2] = '+';
+            return new String(buffer, 2, length + 1);
+        }
+        // If starts with 0, replace the 0 with +91
+        if (first == '0') {
+            buffer[1] = '+';
+            buffer[2] = '9';
+            buffer[3] = '1';
+            return new String(buffer, 1, length + 2);
+        }
+        // Digits only (e.g. a 10 digit Indian number): add +91
+        if (allDigits) {
+            buffer[0] = '+';
+            buffer[1] = '9';
+            buffer[2] = '1';
+            return new String(buffer, 0, length + 3);
+        }
+        return phone; // Return original if can't format
+    }
+
+    /**
+     * Maps service name from booking form to TeleCRM CLIENT CONCERNS dropdown value
+     * Falls back to "slimming-" + the Title Cased service name if there is no mapping
+     */
+    static String clientConcerns(String serviceName) {
+        if (isBlank(serviceName)) {
+            return null;
+        }
+        // Form values are already lower-case kebab-case, so the exact lookup normally hits
+        String mapped = CLIENT_CONCERNS.get(serviceName);
+        if (mapped == null) {
+            mapped = CLIENT_CONCERNS.get(serviceName.toLowerCase().trim());
+        }
+        if (mapped != null) {
+            return mapped;
+        }
+        System.err.println("⚠️ No mapping found for service: " + serviceName + ", using formatted value");
+        return "slimming-" + formatServiceName(serviceName);
+    }
+
+    /**
+     * Converts kebab-case to Title Case (e.g., "hair-cut" -> "Hair Cut")
+     */
+    static String formatServiceName(String serviceName) {
+        StringBuilder formatted = new StringBuilder(serviceName.length());
+        boolean wordStart = true;
+        boolean firstSegment = true;
+        for (int i = 0; i < serviceName.length(); i++) {
+            char c = serviceName.charAt(i);
+            if (c == '-') {
+                wordStart = true;
+                firstSegment = false;
+                continue;
+            }
+            if (wordStart) {
+                if (!firstSegment) {
+                    formatted.append(' ');
+                }
+                formatted.append(Character.toUpperCase(c));
+                wordStart = false;
+            } else {
+                formatted.append(Character.toLowerCase(c));
+            }
+        }
+        return formatted.toString();
+    }
+
+    /**
+     * Combines date and time into TeleCRM format: "DD/MM/YYYY HH:mm:ss"
+     * Input date format: "YYYY-MM-DD" (from HTML date input)
+     * Input time format: "HH:mm" (from HTML time input)
+     * Falls back to the current date/time if the date is not in that shape.
+     */
+    static String formatAppointmentDateTime(String date, String time) {
+        int firstDash = date == null ? -1 : date.indexOf('-');
+        int secondDash = firstDash < 0 ? -1 : date.indexOf('-', firstDash + 1);
+        if (secondDash < 0 || secondDash == date.length() - 1 || date.indexOf('-', secondDash + 1) >= 0) {
+            System.err.println("Error formatting appointment date/time: unexpected date " + date);
+            return LocalDateTime.now().format(TELECRM_DATE_FORMAT);
+        }
+        String timeText = String.valueOf(time);
+        return new StringBuilder(date.length() + timeText.length() + 4)
+            .append(date, secondDash + 1, date.length()).append('/')
+            .append(date, firstDash + 1, secondDash).append('/')
+            .append(date, 0, firstDash).append(' ')
+            .append(timeText).append(":00")
+            .toString();
+    }
+
+    private static boolean isSeparator(char c) {
+        // Matches the old [\s-()] character class
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r'
+            || c == '-' || c == '(' || c == ')';
+    }
+
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
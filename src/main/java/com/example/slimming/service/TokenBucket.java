@@ -0,0 +1,92 @@
+package com.example.slimming.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread-safe token bucket used to cap outbound send rates.
+ * A non-positive rate means unlimited. The rate can be changed while in use.
+ * The capacity is the largest burst; a new bucket holds one second's worth of tokens (at
+ * most the capacity), so starting many buckets at once does not release a burst from each.
+ */
+public class TokenBucket {
+
+    private double ratePerSecond;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+    private final LongSupplier nanoClock;
+
+    public TokenBucket(double ratePerSecond, double capacity) {
+        this(ratePerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double ratePerSecond, double capacity, LongSupplier nanoClock) {
+        this.ratePerSecond = ratePerSecond;
+        this.capacity = Math.max(1, capacity);
+        this.tokens = Math.min(this.capacity, Math.max(0, ratePerSecond));
+        this.nanoClock = nanoClock;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    public double getCapacity() {
+        return capacity;
+    }
+
+    public synchronized double getRate() {
+        return ratePerSecond;
+    }
+
+    /**
+     * Changes the refill rate; tokens already in the bucket are kept.
+     */
+    public synchronized void setRate(double ratePerSecond) {
+        refill();
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public synchronized boolean tryAcquire(int permits) {
+        if (ratePerSecond <= 0) {
+            return true;
+        }
+        refill();
+        if (tokens >= permits) {
+            tokens -= permits;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Blocks until the permits are available.
+     */
+    public void acquire(int permits) throws InterruptedException {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                if (ratePerSecond <= 0) {
+                    return;
+                }
+                refill();
+                // A request larger than the bucket can never fit; let it through once the bucket is full
+                double needed = Math.min(permits, capacity);
+                if (tokens >= needed) {
+                    tokens -= needed;
+                    return;
+                }
+                waitNanos = (long) ((needed - tokens) / ratePerSecond * 1_000_000_000L);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1_000_000L));
+        }
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        if (ratePerSecond <= 0) {
+            lastRefillNanos = now;
+            return;
+        }
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * ratePerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.slimming.benchmark;
+
+import com.example.slimming.service.SlugGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.Normalizer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass {@link SlugGenerator} with the original regex-based implementation.
+ * Run with: mvn test-compile, then execute main() (add "-prof gc" via the JMH CLI to see allocation rates).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlugGeneratorBenchmark {
+
+    @Param({
+        "10 Tips for Faster Fat Reduction",
+        "CoolSculpting vs. Liposuction: What's Right for You?",
+        "Crème Brûlée Cravings? Managing Sugar During Your Slimming Journey",
+        "  Inch-Loss   Treatments -- Before & After (2025 Édition)  "
+    })
+    private String title;
+
+    private SlugGenerator slugGenerator;
+
+    // Output parity with legacySlug is checked by SlugGeneratorTests
+    @Setup(Level.Trial)
+    public void setUp() {
+        slugGenerator = new SlugGenerator();
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return slugGenerator.generateSlug(title);
+    }
+
+    @Benchmark
+    public String legacyRegex() {
+        return legacySlug(title);
+    }
+
+    // Original BlogController.generateSlug, kept verbatim as the baseline
+    public static String legacySlug(String title) {
+        if (title == null || title.isEmpty()) {
+            return "";
+        }
+        String slug = title.toLowerCase();
+        slug = Normalizer.normalize(slug, Normalizer.Form.NFD);
+        slug = slug.replaceAll("\\p{InCombiningDiacriticalMarks}+", "");
+        slug = slug.replaceAll("[^a-z0-9\\s-]", "");
+        slug = slug.replaceAll("\\s+", "-");
+        slug = slug.replaceAll("-+", "-");
+        slug = slug.replaceAll("^-|-$", "");
+        return slug;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(SlugGeneratorBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
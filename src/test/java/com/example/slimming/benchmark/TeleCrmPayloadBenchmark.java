@@ -0,0 +1,165 @@
+package com.example.slimming.benchmark;
+
+import com.example.slimming.entity.Booking;
+import com.example.slimming.service.TeleCrmPayloadBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link TeleCrmPayloadBuilder} with the original HashMap-based TeleCRM payload.
+ * Run with: mvn test-compile, then execute main(); the GC profiler is enabled, so compare
+ * gc.alloc.rate.norm (bytes allocated per lead) alongside the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TeleCrmPayloadBenchmark {
+
+    @Param({"consultation", "fat-reduction", "laser-hair-removal"})
+    private String serviceName;
+
+    private Booking booking;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        booking = new Booking();
+        booking.setId(42L);
+        booking.setName("Priya Sharma");
+        booking.setEmail("priya.sharma@example.com");
+        booking.setPhone("098765 43210");
+        booking.setServiceName(serviceName);
+        booking.setDate("2026-01-15");
+        booking.setTime("10:30");
+        booking.setMessage("Prefer a morning slot");
+        objectMapper = new ObjectMapper();
+
+        // Same JSON document (field order aside) as the legacy payload
+        byte[] expected = legacyPayload();
+        byte[] actual = builder();
+        if (!objectMapper.readTree(expected).equals(objectMapper.readTree(actual))) {
+            throw new IllegalStateException("Payload mismatch: " + new String(expected) + " vs " + new String(actual));
+        }
+    }
+
+    @Benchmark
+    public byte[] builder() {
+        return TeleCrmPayloadBuilder.toJson(TeleCrmPayloadBuilder.build(booking));
+    }
+
+    @Benchmark
+    public byte[] legacyMap() throws Exception {
+        return legacyPayload();
+    }
+
+    // Original TeleCRMService payload construction, kept as the baseline (logging removed)
+    private byte[] legacyPayload() throws Exception {
+        Map<String, Object> payload = new HashMap<>();
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("name", booking.getName());
+        fields.put("phone", legacyFormatPhoneNumber(booking.getPhone()));
+        fields.put("email", booking.getEmail());
+        fields.put("appointment_date_and_time", legacyFormatAppointmentDateTime(booking.getDate(), booking.getTime()));
+        if (booking.getMessage() != null && !booking.getMessage().trim().isEmpty()) {
+            fields.put("note", booking.getMessage());
+        }
+        String leadSourceValue = "sashaslimmingweb";
+        fields.put("lead_source", leadSourceValue);
+        fields.put("leadSource", leadSourceValue);
+        fields.put("source", leadSourceValue);
+        if (booking.getServiceName() != null && !booking.getServiceName().trim().isEmpty()) {
+            fields.put("client_concerns", legacyMapServiceToClientConcerns(booking.getServiceName()));
+        }
+        payload.put("fields", fields);
+        // The original logged the whole payload on every call
+        String logged = payload.toString();
+        if (logged.isEmpty()) {
+            throw new IllegalStateException();
+        }
+        return objectMapper.writeValueAsBytes(payload);
+    }
+
+    private static String legacyFormatPhoneNumber(String phone) {
+        if (phone == null || phone.trim().isEmpty()) {
+            return phone;
+        }
+        String cleaned = phone.trim().replaceAll("[\\s-()]", "");
+        if (cleaned.startsWith("+")) {
+            return cleaned;
+        }
+        if (cleaned.startsWith("91") && cleaned.length() >= 12) {
+            return "+" + cleaned;
+        }
+        if (cleaned.startsWith("0")) {
+            return "+91" + cleaned.substring(1);
+        }
+        if (cleaned.length() == 10 && cleaned.matches("\\d{10}")) {
+            return "+91" + cleaned;
+        }
+        if (cleaned.matches("\\d+")) {
+            return "+91" + cleaned;
+        }
+        return phone;
+    }
+
+    private static String legacyMapServiceToClientConcerns(String serviceName) {
+        Map<String, String> serviceMapping = new HashMap<>();
+        serviceMapping.put("consultation", "slimming-Consultation");
+        serviceMapping.put("fat-reduction", "slimming-fat-reduction");
+        serviceMapping.put("inch-loss", "slimming-inch-loss");
+        serviceMapping.put("muscle-toning", "slimming-muscle-toning");
+        serviceMapping.put("skin-tightening", "slimming-skin-tightening");
+        serviceMapping.put("surgical-sculpting", "slimming-surgical-sculpting");
+        String mappedValue = serviceMapping.get(serviceName.toLowerCase().trim());
+        if (mappedValue != null) {
+            return mappedValue;
+        }
+        String[] words = serviceName.split("-");
+        StringBuilder formatted = new StringBuilder();
+        for (int i = 0; i < words.length; i++) {
+            if (words[i].length() > 0) {
+                String word = words[i].substring(0, 1).toUpperCase() + words[i].substring(1).toLowerCase();
+                if (i > 0) {
+                    formatted.append(" ");
+                }
+                formatted.append(word);
+            }
+        }
+        return "slimming-" + formatted;
+    }
+
+    private static String legacyFormatAppointmentDateTime(String date, String time) {
+        String[] dateParts = date.split("-");
+        return dateParts[2] + "/" + dateParts[1] + "/" + dateParts[0] + " " + time + ":00";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(TeleCrmPayloadBenchmark.class.getSimpleName())
+            .addProfiler("gc")
+            .build();
+        new Runner(options).run();
+    }
+}
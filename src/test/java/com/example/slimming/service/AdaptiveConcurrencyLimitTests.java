@@ -0,0 +1,48 @@
+package com.example.slimming.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Additive increase and multiplicative decrease of the limit.
+ */
+class AdaptiveConcurrencyLimitTests {
+
+    @Test
+    void cleanCompletionsGrowTheLimitByAboutOneSlotPerWindow() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 8);
+
+        completeClean(limit, 4);
+        assertEquals(4, limit.getLimit());
+        completeClean(limit, 1);
+        assertEquals(5, limit.getLimit());
+
+        completeClean(limit, 100);
+        assertEquals(8, limit.getLimit());
+    }
+
+    @Test
+    void congestedCompletionHalvesTheLimitDownToTheMinimum() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 1, 8);
+
+        limit.acquire();
+        limit.release(true);
+        assertEquals(4, limit.getLimit());
+        limit.acquire();
+        limit.release(true);
+        assertEquals(2, limit.getLimit());
+        for (int i = 0; i < 5; i++) {
+            limit.acquire();
+            limit.release(true);
+        }
+        assertEquals(1, limit.getLimit());
+    }
+
+    private static void completeClean(AdaptiveConcurrencyLimit limit, int completions) throws InterruptedException {
+        for (int i = 0; i < completions; i++) {
+            limit.acquire();
+            limit.release(false);
+        }
+    }
+}
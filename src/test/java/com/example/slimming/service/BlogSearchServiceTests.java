@@ -0,0 +1,90 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Blog;
+import com.example.slimming.enums.BlogStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ranking, tokenization and index maintenance of the in-process blog search.
+ */
+class BlogSearchServiceTests {
+
+    private BlogSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        searchService = new BlogSearchService();
+        ReflectionTestUtils.setField(searchService, "slugGenerator", new SlugGenerator());
+    }
+
+    @Test
+    void titleMatchOutranksContentMatch() {
+        searchService.rebuild(List.of(
+            blog(1L, "Healthy breakfast ideas", "<p>Toning starts in the kitchen.</p>"),
+            blog(2L, "Toning after pregnancy", "<p>Gentle exercises for new mothers.</p>")));
+
+        assertEquals(List.of(2L, 1L), searchService.search("toning", 10));
+    }
+
+    @Test
+    void punctuationAndAccentsAreWordBreaksAndFolded() {
+        searchService.rebuild(List.of(
+            blog(1L, "Fat.loss myths", "<p>Nothing to see.</p>"),
+            blog(2L, "Results", "<p>Our inch/loss programme, crème brûlée free.</p>"),
+            blog(3L, "Unrelated", "<p>Sleep well.</p>")));
+
+        assertEquals(List.of(1L), searchService.search("fat", 10));
+        assertEquals(List.of(2L), searchService.search("inch", 10));
+        // Both match; the title match ranks first
+        assertEquals(List.of(1L, 2L), searchService.search("loss", 10));
+        assertEquals(List.of(2L), searchService.search("creme brulee", 10));
+        assertEquals(List.of(2L), searchService.search("Crème", 10));
+    }
+
+    @Test
+    void removedAndUnpublishedBlogsDropOutOfResults() {
+        Blog draft = blog(2L, "Toning guide", "<p>Toning.</p>");
+        searchService.rebuild(List.of(blog(1L, "Toning basics", "<p>Toning.</p>"), draft));
+
+        searchService.remove(1L);
+        assertEquals(List.of(2L), searchService.search("toning", 10));
+
+        draft.setStatus(BlogStatus.DRAFT);
+        searchService.index(draft);
+        assertEquals(List.of(), searchService.search("toning", 10));
+    }
+
+    @Test
+    void limitKeepsOnlyTheBestResultsAndIsClamped() {
+        List<Blog> blogs = new ArrayList<>();
+        for (long id = 1; id <= 60; id++) {
+            blogs.add(blog(id, "Post " + id, "<p>toning</p>"));
+        }
+        blogs.add(blog(100L, "Toning", "<p>toning</p>"));
+        searchService.rebuild(blogs);
+
+        List<Long> results = searchService.search("toning", BlogSearchService.clampLimit(500));
+        assertEquals(50, results.size());
+        assertEquals(100L, results.get(0));
+        assertEquals(List.of(100L), searchService.search("toning", 1));
+        assertEquals(20, searchService.search("toning", BlogSearchService.clampLimit(null)).size());
+        assertEquals(20, BlogSearchService.clampLimit(0));
+        assertEquals(7, BlogSearchService.clampLimit(7));
+    }
+
+    private static Blog blog(Long id, String title, String content) {
+        Blog blog = new Blog();
+        blog.setId(id);
+        blog.setTitle(title);
+        blog.setContent(content);
+        blog.setStatus(BlogStatus.PUBLISHED);
+        return blog;
+    }
+}
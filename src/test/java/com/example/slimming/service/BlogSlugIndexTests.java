@@ -0,0 +1,76 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Blog;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Lookup order (exact, case-folded, generated from title, hyphenated title) and
+ * first-blog-wins precedence of the slug index.
+ */
+class BlogSlugIndexTests {
+
+    private final SlugGenerator slugGenerator = new SlugGenerator();
+
+    @Test
+    void exactSlugBeatsCaseFoldedSlug() {
+        Blog upper = blog(1L, "Fat-Loss", "First");
+        Blog lower = blog(2L, "fat-loss", "Second");
+        BlogSlugIndex index = new BlogSlugIndex(List.of(upper, lower), slugGenerator);
+
+        assertSame(upper, index.resolve("Fat-Loss"));
+        assertSame(lower, index.resolve("fat-loss"));
+        // No exact match: the first blog in listing order wins the folded lookup
+        assertSame(upper, index.resolve("FAT-LOSS"));
+    }
+
+    @Test
+    void foldedSlugBeatsGeneratedSlugWhichBeatsTitle() {
+        Blog bySlug = blog(1L, "toning-tips", "Something else");
+        Blog byGenerated = blog(2L, "post-2", "Toning Tips");
+        Blog byTitle = blog(3L, "post-3", "toning tips");
+        BlogSlugIndex index = new BlogSlugIndex(List.of(byTitle, byGenerated, bySlug), slugGenerator);
+
+        assertSame(bySlug, index.resolve("Toning-Tips"));
+
+        BlogSlugIndex withoutSlug = new BlogSlugIndex(List.of(byTitle, byGenerated), slugGenerator);
+        // Both titles generate "toning-tips"; the first in listing order wins
+        assertSame(byTitle, withoutSlug.resolve("toning-tips"));
+    }
+
+    @Test
+    void firstBlogWinsEveryCollision() {
+        Blog first = blog(1L, "same", "Same Title");
+        Blog second = blog(2L, "same", "Same Title");
+        BlogSlugIndex index = new BlogSlugIndex(List.of(first, second), slugGenerator);
+
+        assertSame(first, index.resolve("same"));
+        assertSame(first, index.resolve("SAME"));
+        assertSame(first, index.resolve("same-title"));
+    }
+
+    @Test
+    void resolvesFoldedAndLegacyTitleLookups() {
+        Blog accented = blog(1L, null, "Crème Brûlée Cravings");
+        BlogSlugIndex index = new BlogSlugIndex(List.of(accented), slugGenerator);
+
+        // Generated from the title, in any case
+        assertSame(accented, index.resolve("creme-brulee-cravings"));
+        assertSame(accented, index.resolve("Creme-Brulee-Cravings"));
+        // Old links built the slug by hyphenating the raw title
+        assertSame(accented, index.resolve("Crème-Brûlée-Cravings"));
+        assertNull(index.resolve("creme-brulee"));
+    }
+
+    private static Blog blog(Long id, String slug, String title) {
+        Blog blog = new Blog();
+        blog.setId(id);
+        blog.setSlug(slug);
+        blog.setTitle(title);
+        return blog;
+    }
+}
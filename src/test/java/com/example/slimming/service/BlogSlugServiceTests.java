@@ -0,0 +1,79 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Blog;
+import com.example.slimming.repository.BlogRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Save retries on slug conflicts, and only on those.
+ */
+class BlogSlugServiceTests {
+
+    private BlogRepository blogRepository;
+    private BlogSlugService blogSlugService;
+
+    @BeforeEach
+    void setUp() {
+        blogRepository = mock(BlogRepository.class);
+        blogSlugService = new BlogSlugService();
+        ReflectionTestUtils.setField(blogSlugService, "blogRepository", blogRepository);
+    }
+
+    @Test
+    void slugConflictIsRetriedWithTheNextFreeSlug() {
+        Blog blog = new Blog();
+        when(blogRepository.findSlugsByBase("fat-loss"))
+            .thenReturn(List.of())
+            .thenReturn(List.of("fat-loss"));
+        when(blogRepository.saveAndFlush(any()))
+            .thenThrow(violation("blogs.uk_blogs_slug"))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Blog saved = blogSlugService.saveWithUniqueSlug(blog, "fat-loss", null);
+
+        assertEquals("fat-loss-1", saved.getSlug());
+        verify(blogRepository, times(2)).saveAndFlush(blog);
+    }
+
+    @Test
+    void otherIntegrityViolationsAreRethrownWithoutRetrying() {
+        DataIntegrityViolationException notNull = violation("blogs.title");
+        when(blogRepository.findSlugsByBase(anyString())).thenReturn(List.of());
+        when(blogRepository.saveAndFlush(any())).thenThrow(notNull);
+
+        assertSame(notNull, assertThrows(DataIntegrityViolationException.class,
+            () -> blogSlugService.saveWithUniqueSlug(new Blog(), "fat-loss", null)));
+        verify(blogRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void emptyBaseSlugUsesTheSharedFallback() {
+        when(blogRepository.findSlugsByBase(SlugGenerator.FALLBACK_SLUG)).thenReturn(List.of("blog"));
+        when(blogRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals("blog-1", blogSlugService.saveWithUniqueSlug(new Blog(), "", null).getSlug());
+    }
+
+    private static DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+            new ConstraintViolationException("could not execute statement",
+                new SQLIntegrityConstraintViolationException("Duplicate entry"), constraint));
+    }
+}
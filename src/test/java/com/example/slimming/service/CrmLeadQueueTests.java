@@ -0,0 +1,112 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Booking;
+import com.example.slimming.entity.CrmLead;
+import com.example.slimming.enums.CrmSyncStatus;
+import com.example.slimming.enums.LeadSyncStatus;
+import com.example.slimming.repository.BookingRepository;
+import com.example.slimming.repository.CrmLeadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reconciliation backfill decisions against the phone's existing lead row.
+ */
+class CrmLeadQueueTests {
+
+    private static final String PHONE = "+919876543210";
+
+    private CrmLeadRepository leadRepository;
+    private BookingRepository bookingRepository;
+    private CrmLeadQueue leadQueue;
+
+    @BeforeEach
+    void setUp() {
+        leadRepository = mock(CrmLeadRepository.class);
+        bookingRepository = mock(BookingRepository.class);
+        leadQueue = new CrmLeadQueue();
+        ReflectionTestUtils.setField(leadQueue, "leadRepository", leadRepository);
+        ReflectionTestUtils.setField(leadQueue, "bookingRepository", bookingRepository);
+        ReflectionTestUtils.setField(leadQueue, "teleCRMService", new TeleCRMService());
+    }
+
+    @Test
+    void olderBookingForARepeatPhoneIsSupersededAndMarkedSynced() {
+        when(leadRepository.lockByPhone(PHONE)).thenReturn(Optional.of(lead(20L, LeadSyncStatus.PENDING)));
+
+        assertEquals(CrmLeadQueue.Backfill.SUPERSEDED, leadQueue.backfill(booking(10L)));
+
+        verify(bookingRepository).updateCrmSync(eq(10L), eq(CrmSyncStatus.SYNCED), any());
+        verify(leadRepository, never()).save(any());
+        verify(leadRepository, never()).insertIfNewer(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void alreadySyncedLeadMarksTheBookingSynced() {
+        CrmLead lead = lead(10L, LeadSyncStatus.SYNCED);
+        lead.setSyncedAt(LocalDateTime.of(2026, 1, 15, 10, 30));
+        when(leadRepository.lockByPhone(PHONE)).thenReturn(Optional.of(lead));
+
+        assertEquals(CrmLeadQueue.Backfill.ALREADY_SYNCED, leadQueue.backfill(booking(10L)));
+
+        verify(bookingRepository).updateCrmSync(10L, CrmSyncStatus.SYNCED, lead.getSyncedAt());
+        verify(leadRepository, never()).save(any());
+    }
+
+    @Test
+    void failedLeadIsReArmedAndMissingLeadIsInserted() {
+        CrmLead failed = lead(10L, LeadSyncStatus.FAILED);
+        failed.setAttempts(8);
+        when(leadRepository.lockByPhone(PHONE)).thenReturn(Optional.of(failed));
+
+        assertEquals(CrmLeadQueue.Backfill.QUEUED, leadQueue.backfill(booking(10L)));
+        assertEquals(LeadSyncStatus.PENDING, failed.getStatus());
+        assertEquals(0, failed.getAttempts());
+        verify(leadRepository).save(failed);
+
+        when(leadRepository.lockByPhone(PHONE)).thenReturn(Optional.empty());
+        assertEquals(CrmLeadQueue.Backfill.QUEUED, leadQueue.backfill(booking(11L)));
+        verify(leadRepository).insertIfNewer(eq(PHONE), eq(11L), any());
+    }
+
+    @Test
+    void leadStillBeingSentIsLeftAlone() {
+        when(leadRepository.lockByPhone(PHONE)).thenReturn(Optional.of(lead(10L, LeadSyncStatus.SENDING)));
+
+        assertEquals(CrmLeadQueue.Backfill.IN_FLIGHT, leadQueue.backfill(booking(10L)));
+
+        verify(leadRepository, never()).save(any());
+        verify(bookingRepository, never()).updateCrmSync(anyLong(), any(), any());
+    }
+
+    private static CrmLead lead(Long bookingId, LeadSyncStatus status) {
+        CrmLead lead = new CrmLead();
+        lead.setId(1L);
+        lead.setPhone(PHONE);
+        lead.setBookingId(bookingId);
+        lead.setStatus(status);
+        lead.setAttempts(0);
+        return lead;
+    }
+
+    private static Booking booking(Long id) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setPhone("98765 43210");
+        return booking;
+    }
+}
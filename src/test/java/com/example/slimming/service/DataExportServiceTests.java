@@ -0,0 +1,32 @@
+package com.example.slimming.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CSV formula-injection guard: formulas are neutralized, phone numbers are written as is.
+ */
+class DataExportServiceTests {
+
+    @Test
+    void phoneNumbersAndSignedNumbersAreNotGuarded() {
+        assertFalse(DataExportService.needsFormulaGuard("+919876543210"));
+        assertFalse(DataExportService.needsFormulaGuard("+91 98765 43210"));
+        assertFalse(DataExportService.needsFormulaGuard("+1 (555) 010-9999"));
+        assertFalse(DataExportService.needsFormulaGuard("-42"));
+        assertFalse(DataExportService.needsFormulaGuard("09876543210"));
+        assertFalse(DataExportService.needsFormulaGuard(""));
+    }
+
+    @Test
+    void formulasAreGuarded() {
+        assertTrue(DataExportService.needsFormulaGuard("=SUM(A1:A9)"));
+        assertTrue(DataExportService.needsFormulaGuard("+cmd|' /C calc'!A0"));
+        assertTrue(DataExportService.needsFormulaGuard("-2+3"));
+        assertTrue(DataExportService.needsFormulaGuard("@SUM(1)"));
+        assertTrue(DataExportService.needsFormulaGuard("\t=1"));
+        assertTrue(DataExportService.needsFormulaGuard("-"));
+    }
+}
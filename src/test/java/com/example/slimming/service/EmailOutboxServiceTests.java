@@ -0,0 +1,81 @@
+package com.example.slimming.service;
+
+import com.example.slimming.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Welcome email dedupe under concurrent sign-ups. The repository mock enforces the unique
+ * dedupe key like the database would, and the window check never sees the other callers' rows.
+ */
+class EmailOutboxServiceTests {
+
+    private final Set<String> dedupeKeys = ConcurrentHashMap.newKeySet();
+    private EmailOutboxService outboxService;
+
+    @BeforeEach
+    void setUp() {
+        EmailOutboxRepository outboxRepository = mock(EmailOutboxRepository.class);
+        when(outboxRepository.insertIfAbsent(eq("WELCOME"), anyString(), anyLong(), anyString(), any()))
+            .thenAnswer(invocation -> dedupeKeys.add(invocation.getArgument(3)) ? 1 : 0);
+        outboxService = new EmailOutboxService();
+        ReflectionTestUtils.setField(outboxService, "outboxRepository", outboxRepository);
+        // One bucket for the whole test, so it cannot straddle a bucket boundary
+        ReflectionTestUtils.setField(outboxService, "welcomeDedupeWindowMinutes", (long) Integer.MAX_VALUE);
+    }
+
+    @Test
+    void concurrentWelcomesForOneAddressQueueASingleEmail() throws Exception {
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                String recipient = i % 2 == 0 ? "reader@example.com" : "Reader@Example.com";
+                long subscriberId = i;
+                Callable<Boolean> enqueue = () -> {
+                    start.await();
+                    return outboxService.enqueueWelcome(recipient, subscriberId);
+                };
+                results.add(executor.submit(enqueue));
+            }
+            start.countDown();
+
+            int queued = 0;
+            for (Future<Boolean> result : results) {
+                queued += result.get() ? 1 : 0;
+            }
+            assertEquals(1, queued);
+            assertEquals(1, dedupeKeys.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void welcomesForDifferentAddressesAreBothQueued() {
+        assertTrue(outboxService.enqueueWelcome("one@example.com", 1L));
+        assertTrue(outboxService.enqueueWelcome("two@example.com", 2L));
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Booking;
+import com.example.slimming.entity.CrmLead;
+import com.example.slimming.repository.BookingRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Flushes queued leads against a local mock of the TeleCRM /autoupdatelead endpoint.
+ */
+class LeadSyncServiceTests {
+
+    private static final String FAILING_PHONE = "+919999999999";
+
+    private HttpServer teleCrmServer;
+    private final List<String> receivedBodies = new CopyOnWriteArrayList<>();
+    private CircuitBreaker circuitBreaker;
+    private CrmLeadQueue leadQueue;
+    private BookingRepository bookingRepository;
+    private LeadSyncService leadSyncService;
+
+    @BeforeEach
+    void startMockTeleCrm() throws IOException {
+        teleCrmServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        teleCrmServer.createContext("/enterprise/ent-1/autoupdatelead", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            receivedBodies.add(body);
+            int status = body.contains(FAILING_PHONE) ? 503 : 200;
+            byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        teleCrmServer.start();
+
+        circuitBreaker = CircuitBreaker.ofDefaults("telecrm");
+        TeleCRMService teleCRMService = new TeleCRMService();
+        ReflectionTestUtils.setField(teleCRMService, "restTemplate", new RestTemplate());
+        ReflectionTestUtils.setField(teleCRMService, "telecrmApiUrl", "http://localhost:" + teleCrmServer.getAddress().getPort());
+        ReflectionTestUtils.setField(teleCRMService, "enterpriseId", "ent-1");
+        ReflectionTestUtils.setField(teleCRMService, "apiToken", "test-token");
+        ReflectionTestUtils.setField(teleCRMService, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(teleCRMService, "bulkhead", Bulkhead.ofDefaults("telecrm"));
+
+        leadQueue = mock(CrmLeadQueue.class);
+        bookingRepository = mock(BookingRepository.class);
+
+        leadSyncService = new LeadSyncService();
+        ReflectionTestUtils.setField(leadSyncService, "leadQueue", leadQueue);
+        ReflectionTestUtils.setField(leadSyncService, "bookingRepository", bookingRepository);
+        ReflectionTestUtils.setField(leadSyncService, "teleCRMService", teleCRMService);
+        ReflectionTestUtils.setField(leadSyncService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(leadSyncService, "batchSize", 3);
+        ReflectionTestUtils.setField(leadSyncService, "concurrency", 2);
+        ReflectionTestUtils.setField(leadSyncService, "deferralSeconds", 30L);
+        leadSyncService.start();
+    }
+
+    @AfterEach
+    void stopMockTeleCrm() {
+        leadSyncService.stop();
+        teleCrmServer.stop(0);
+    }
+
+    @Test
+    void flushSendsClaimedLeadsAndSchedulesRetriesForFailures() {
+        when(leadQueue.claimBatch(anyInt()))
+            .thenReturn(List.of(lead(1L, 11L), lead(2L, 12L), lead(3L, 13L)))
+            .thenReturn(List.of());
+        when(bookingRepository.findById(11L)).thenReturn(Optional.of(booking(11L, "9876543210")));
+        when(bookingRepository.findById(12L)).thenReturn(Optional.of(booking(12L, "9999999999")));
+        when(bookingRepository.findById(13L)).thenReturn(Optional.empty());
+
+        leadSyncService.flush();
+
+        // Deleted booking is never sent
+        assertEquals(2, receivedBodies.size());
+        assertTrue(receivedBodies.stream().anyMatch(body -> body.contains("+919876543210")));
+        verify(leadQueue).markSynced(1L, 11L);
+        verify(leadQueue).markFailed(eq(2L), eq(12L), anyString(), eq(true));
+        verify(leadQueue).markFailed(eq(3L), eq(13L), anyString(), eq(false));
+        verify(leadQueue, never()).markSynced(2L, 12L);
+    }
+
+    @Test
+    void openCircuitDefersLeadsWithoutCallingTeleCrm() {
+        circuitBreaker.transitionToOpenState();
+        when(leadQueue.claimBatch(anyInt()))
+            .thenReturn(List.of(lead(1L, 11L), lead(2L, 12L), lead(3L, 13L)))
+            .thenReturn(List.of(lead(4L, 14L)));
+        when(bookingRepository.findById(anyLong()))
+            .thenAnswer(invocation -> Optional.of(booking(invocation.getArgument(0), "9876543210")));
+
+        leadSyncService.flush();
+
+        assertEquals(0, receivedBodies.size());
+        verify(leadQueue).defer(1L, 11L, 30L);
+        verify(leadQueue).defer(3L, 13L, 30L);
+        verify(leadQueue, never()).markFailed(anyLong(), anyLong(), anyString(), anyBoolean());
+        // The flush stops instead of claiming more leads it cannot send
+        verify(leadQueue, times(1)).claimBatch(anyInt());
+    }
+
+    @Test
+    void sizeTriggerFlushesOnceAFullBatchIsQueued() {
+        when(leadQueue.claimBatch(anyInt())).thenReturn(List.of());
+
+        leadSyncService.leadQueued();
+        leadSyncService.leadQueued();
+        verify(leadQueue, never()).claimBatch(anyInt());
+
+        leadSyncService.leadQueued();
+        verify(leadQueue).claimBatch(3);
+    }
+
+    private static CrmLead lead(Long id, Long bookingId) {
+        CrmLead lead = new CrmLead();
+        lead.setId(id);
+        lead.setBookingId(bookingId);
+        lead.setAttempts(0);
+        return lead;
+    }
+
+    private static Booking booking(Long id, String phone) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setName("Customer " + id);
+        booking.setEmail("customer" + id + "@example.com");
+        booking.setPhone(phone);
+        booking.setServiceName("consultation");
+        booking.setDate("2026-01-15");
+        booking.setTime("10:30");
+        return booking;
+    }
+}
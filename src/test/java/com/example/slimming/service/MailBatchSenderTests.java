@@ -0,0 +1,110 @@
+package com.example.slimming.service;
+
+import com.example.slimming.dto.MailTransportStats;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs MailBatchSender against a local GreenMail SMTP server and reports throughput.
+ */
+class MailBatchSenderTests {
+
+    private static final int MESSAGE_COUNT = 120;
+    private static final int BATCH_SIZE = 50;
+
+    private GreenMail smtpServer;
+    private MailBatchSender mailBatchSender;
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void startSmtpServer() {
+        smtpServer = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+        smtpServer.start();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.getSmtp().getPort());
+
+        mailBatchSender = new MailBatchSender();
+        ReflectionTestUtils.setField(mailBatchSender, "mailSender", mailSender);
+        ReflectionTestUtils.setField(mailBatchSender, "batchSize", BATCH_SIZE);
+    }
+
+    @AfterEach
+    void stopSmtpServer() {
+        smtpServer.stop();
+    }
+
+    @Test
+    void sendsAllMessagesInConnectionSizedBatches() throws Exception {
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < MESSAGE_COUNT; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+            helper.setFrom("noreply@slimming.com");
+            helper.setTo("subscriber" + i + "@example.com");
+            helper.setSubject("New Blog Post: Batch " + i);
+            helper.setText("<p>Hello</p>", true);
+            messages.add(message);
+        }
+
+        Map<MimeMessage, Exception> failures = mailBatchSender.send(messages);
+
+        assertTrue(failures.isEmpty());
+        assertTrue(smtpServer.waitForIncomingEmail(5000, MESSAGE_COUNT));
+        assertEquals(MESSAGE_COUNT, smtpServer.getReceivedMessages().length);
+
+        MailTransportStats stats = mailBatchSender.getStats();
+        assertEquals(MESSAGE_COUNT, stats.getMessagesSent());
+        assertEquals(0, stats.getMessagesFailed());
+        assertEquals(3, stats.getBatches());
+        System.out.printf("Batched SMTP send: %.1f msg/s, %.2f ms/msg%n",
+            stats.getMessagesPerSecond(), stats.getAverageMessageLatencyMillis());
+    }
+
+    @Test
+    void reportsEveryMessageAsFailedWhenServerIsDown() throws Exception {
+        smtpServer.stop();
+        MimeMessage message = mailSender.createMimeMessage();
+        new MimeMessageHelper(message, false, "UTF-8").setTo("subscriber@example.com");
+
+        Map<MimeMessage, Exception> failures = mailBatchSender.send(List.of(message));
+
+        assertEquals(1, failures.size());
+        assertEquals(1, mailBatchSender.getStats().getMessagesFailed());
+    }
+
+    @Test
+    void deferralIsRecognisedFromTheSmtpReturnCode() throws Exception {
+        InternetAddress recipient = new InternetAddress("subscriber@example.com");
+        SendFailedException busyMailbox = new SendFailedException("Invalid Addresses",
+            new SMTPAddressFailedException(recipient, "RCPT TO", 450, "4.2.1 Mailbox busy"));
+        SendFailedException unknownUser = new SendFailedException("Invalid Addresses",
+            new SMTPAddressFailedException(recipient, "RCPT TO", 550, "4.0 is not a reply code here"));
+
+        assertTrue(MailBatchSender.isDeferral(busyMailbox));
+        assertTrue(MailBatchSender.isDeferral(
+            new SMTPSendFailedException("DATA", 421, "Try again later", null, null, null, null)));
+        assertFalse(MailBatchSender.isDeferral(unknownUser));
+        assertFalse(MailBatchSender.isDeferral(new IllegalStateException("421 not from the SMTP transport")));
+    }
+}
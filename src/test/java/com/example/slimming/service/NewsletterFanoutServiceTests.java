@@ -0,0 +1,197 @@
+package com.example.slimming.service;
+
+import com.example.slimming.dto.SubscriberAddress;
+import com.example.slimming.entity.Blog;
+import com.example.slimming.entity.NewsletterCampaign;
+import com.example.slimming.enums.CampaignStatus;
+import com.example.slimming.repository.BlogRepository;
+import com.example.slimming.repository.NewsletterCampaignRepository;
+import com.example.slimming.repository.NewsletterSubscriberRepository;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two instances competing for one campaign row. The repository mock applies the claim and
+ * owner-guarded update conditions to a single in-memory row, the way the database would.
+ */
+class NewsletterFanoutServiceTests {
+
+    private static final long CAMPAIGN_ID = 1L;
+    private static final long BLOG_ID = 7L;
+
+    private final NewsletterCampaign row = new NewsletterCampaign();
+    private NewsletterCampaignRepository campaignRepository;
+    private BlogRepository blogRepository;
+
+    @BeforeEach
+    void setUp() {
+        row.setId(CAMPAIGN_ID);
+        row.setBlogId(BLOG_ID);
+        row.setStatus(CampaignStatus.QUEUED);
+        row.setCreatedAt(LocalDateTime.now());
+        row.setUpdatedAt(LocalDateTime.now());
+
+        Blog blog = new Blog();
+        blog.setId(BLOG_ID);
+        blogRepository = mock(BlogRepository.class);
+        when(blogRepository.findById(BLOG_ID)).thenReturn(Optional.of(blog));
+
+        campaignRepository = mock(NewsletterCampaignRepository.class);
+        when(campaignRepository.findByStatusInOrderByIdAsc(anyCollection())).thenAnswer(invocation -> {
+            synchronized (row) {
+                Collection<?> statuses = invocation.getArgument(0);
+                return statuses.contains(row.getStatus()) ? List.of(copyOfRow()) : List.of();
+            }
+        });
+        when(campaignRepository.claim(anyLong(), anyString(), any(), anyCollection(), any(), any())).thenAnswer(invocation -> {
+            synchronized (row) {
+                Collection<?> claimable = invocation.getArgument(3);
+                LocalDateTime staleBefore = invocation.getArgument(5);
+                if (!claimable.contains(row.getStatus())
+                        || (row.getOwner() != null && !row.getUpdatedAt().isBefore(staleBefore))) {
+                    return 0;
+                }
+                row.setOwner(invocation.getArgument(1));
+                row.setStatus(invocation.getArgument(2));
+                row.setUpdatedAt(invocation.getArgument(4));
+                return 1;
+            }
+        });
+        when(campaignRepository.saveIfOwner(anyLong(), anyString(), any(), any(), any(), any(), any(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                synchronized (row) {
+                    if (!invocation.getArgument(1).equals(row.getOwner())) {
+                        return 0;
+                    }
+                    row.setStatus(invocation.getArgument(2));
+                    row.setOwner(invocation.getArgument(3));
+                    row.setLastSubscriberId(invocation.getArgument(4));
+                    row.setSent(invocation.getArgument(5));
+                    row.setFailed(invocation.getArgument(6));
+                    row.setDeferred(invocation.getArgument(7));
+                    row.setFinishedAt(invocation.getArgument(8));
+                    row.setUpdatedAt(invocation.getArgument(9));
+                    return 1;
+                }
+            });
+    }
+
+    @Test
+    void instanceThatLostAStaleCampaignStopsWithoutOverwritingTheNewOwner() throws Exception {
+        Instance first = new Instance();
+        Instance second = new Instance();
+        when(first.subscriberRepository.findActiveAddressesAfter(anyLong(), any())).thenAnswer(invocation -> {
+            // The first instance stalls past the stale window mid-page, and the second takes over
+            synchronized (row) {
+                row.setUpdatedAt(LocalDateTime.now().minusHours(1));
+            }
+            second.service.resumeUnfinishedCampaigns();
+            return List.of(new SubscriberAddress(1L, "reader@example.com"), new SubscriberAddress(2L, "other@example.org"));
+        });
+        when(second.subscriberRepository.findActiveAddressesAfter(anyLong(), any())).thenReturn(List.of());
+
+        first.service.resumeUnfinishedCampaigns();
+        first.awaitIdle();
+        second.awaitIdle();
+
+        assertEquals(second.instanceId(), row.getOwner());
+        assertEquals(CampaignStatus.COMPLETED, row.getStatus());
+        // The first instance's page was never checkpointed, so the new owner resumes before it
+        assertEquals(0L, row.getLastSubscriberId());
+        assertEquals(0, row.getSent());
+        verify(first.subscriberRepository, times(1)).findActiveAddressesAfter(anyLong(), any());
+        verify(first.mailBatchSender, times(1)).send(anyList());
+        verify(first.emailOutboxService, never()).enqueueRetries(any(), any(), any());
+    }
+
+    @Test
+    void campaignWithALiveOwnerIsNotClaimedByASecondInstance() throws Exception {
+        synchronized (row) {
+            row.setStatus(CampaignStatus.RUNNING);
+            row.setOwner("another-instance");
+            row.setUpdatedAt(LocalDateTime.now());
+        }
+        Instance second = new Instance();
+
+        second.service.resumeUnfinishedCampaigns();
+        second.awaitIdle();
+
+        assertEquals("another-instance", row.getOwner());
+        assertEquals(CampaignStatus.RUNNING, row.getStatus());
+        verify(second.subscriberRepository, never()).findActiveAddressesAfter(anyLong(), any());
+    }
+
+    private NewsletterCampaign copyOfRow() {
+        return new NewsletterCampaign(row.getId(), row.getBlogId(), row.getStatus(), row.getLastSubscriberId(),
+            row.getTotal(), row.getSent(), row.getFailed(), row.getDeferred(), row.getOwner(), row.getCreatedAt(),
+            row.getUpdatedAt(), row.getFinishedAt());
+    }
+
+    private final class Instance {
+        private final NewsletterFanoutService service = new NewsletterFanoutService();
+        private final NewsletterSubscriberRepository subscriberRepository = mock(NewsletterSubscriberRepository.class);
+        private final MailBatchSender mailBatchSender = mock(MailBatchSender.class);
+        private final EmailOutboxService emailOutboxService = mock(EmailOutboxService.class);
+
+        private Instance() throws Exception {
+            EmailService emailService = mock(EmailService.class);
+            RenderedNewsletter newsletter = mock(RenderedNewsletter.class);
+            when(newsletter.createMessage(anyString(), anyString()))
+                .thenAnswer(invocation -> new MimeMessage(Session.getInstance(new Properties())));
+            when(emailService.renderBlogNewsletter(any(), any())).thenReturn(newsletter);
+            when(mailBatchSender.getBatchSize()).thenReturn(50);
+            when(mailBatchSender.send(anyList())).thenReturn(Map.of());
+            when(subscriberRepository.countByIsActiveTrue()).thenReturn(2L);
+
+            ReflectionTestUtils.setField(service, "subscriberRepository", subscriberRepository);
+            ReflectionTestUtils.setField(service, "campaignRepository", campaignRepository);
+            ReflectionTestUtils.setField(service, "blogRepository", blogRepository);
+            ReflectionTestUtils.setField(service, "emailService", emailService);
+            ReflectionTestUtils.setField(service, "mailBatchSender", mailBatchSender);
+            ReflectionTestUtils.setField(service, "emailOutboxService", emailOutboxService);
+            ReflectionTestUtils.setField(service, "concurrency", 1);
+            ReflectionTestUtils.setField(service, "maxConcurrency", 1);
+            ReflectionTestUtils.setField(service, "domainRates", "");
+            ReflectionTestUtils.setField(service, "checkpointSize", 200);
+            ReflectionTestUtils.setField(service, "campaignStaleAfterSeconds", 300L);
+            ReflectionTestUtils.invokeMethod(service, "start");
+        }
+
+        private String instanceId() {
+            return (String) ReflectionTestUtils.getField(service, "instanceId");
+        }
+
+        // Waits for every campaign run submitted so far, including ones another run started
+        private void awaitIdle() throws InterruptedException {
+            ExecutorService coordinator = (ExecutorService) ReflectionTestUtils.getField(service, "coordinator");
+            coordinator.shutdown();
+            assertTrue(coordinator.awaitTermination(10, TimeUnit.SECONDS));
+            ReflectionTestUtils.invokeMethod(service, "stop");
+        }
+    }
+}
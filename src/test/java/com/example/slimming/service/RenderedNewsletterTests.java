@@ -0,0 +1,79 @@
+package com.example.slimming.service;
+
+import com.example.slimming.entity.Blog;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Slot substitution in the blog newsletter, and escaping of admin-entered text that looks like a slot.
+ */
+class RenderedNewsletterTests {
+
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSender mailSender = mock(JavaMailSender.class);
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage(Session.getInstance(new Properties())));
+        emailService = new EmailService();
+        ReflectionTestUtils.setField(emailService, "mailSender", mailSender);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@slimming.com");
+        ReflectionTestUtils.setField(emailService, "frontendUrl", "https://slimming.example");
+        ReflectionTestUtils.setField(emailService, "contactEmail", "hello@slimming.example");
+    }
+
+    @Test
+    void markersInBlogTextAreEscapedNotSubstituted() throws Exception {
+        Blog blog = blog("Win {{TRACKING_ID}} prizes", "Reply to {{RECIPIENT_EMAIL}} or {{UNKNOWN}} {{");
+
+        RenderedNewsletter newsletter = emailService.renderBlogNewsletter(blog, emailService.buildBlogUrl(blog));
+        String html = newsletter.renderHtml("reader@example.com", "42.7");
+
+        assertTrue(html.contains("<h2>Win &#123;&#123;TRACKING_ID&#125;&#125; prizes</h2>"));
+        assertTrue(html.contains("<p>Reply to &#123;&#123;RECIPIENT_EMAIL&#125;&#125; or &#123;&#123;UNKNOWN&#125;&#125; &#123;&#123;</p>"));
+        assertFalse(html.contains("Win 42.7"));
+        assertFalse(html.contains("Reply to reader@example.com"));
+        // The template's own tracking slot is still filled in
+        assertTrue(html.contains("rid=42.7"));
+    }
+
+    @Test
+    void slotsAreFilledPerRecipient() throws Exception {
+        RenderedNewsletter newsletter = new RenderedNewsletter(null, null, "subject", null,
+            "<p>{{RECIPIENT_EMAIL}}</p><a href='?e={{RECIPIENT_EMAIL_URL}}&rid={{TRACKING_ID}}'>x</a>");
+
+        assertEquals("<p>a&amp;b@example.com</p><a href='?e=a%26b%40example.com&rid=1.2'>x</a>",
+            newsletter.renderHtml("a&b@example.com", "1.2"));
+    }
+
+    @Test
+    void unknownOrUnterminatedMarkersAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new RenderedNewsletter(null, null, "subject", null, "<p>{{NAME}}</p>"));
+        assertThrows(IllegalArgumentException.class,
+            () -> new RenderedNewsletter(null, null, "subject", null, "<p>{{TRACKING_ID</p>"));
+    }
+
+    private static Blog blog(String title, String excerpt) {
+        Blog blog = new Blog();
+        blog.setId(7L);
+        blog.setTitle(title);
+        blog.setExcerpt(excerpt);
+        blog.setCategory("Tips");
+        blog.setImage("https://img.example/cover.jpg");
+        return blog;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.slimming.service;
+
+import com.example.slimming.benchmark.SlugGeneratorBenchmark;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The single-pass generator must produce exactly what the original regex implementation did,
+ * so slugs of existing blogs stay stable.
+ */
+class SlugGeneratorTests {
+
+    private static final List<String> TITLES = List.of(
+        // ASCII
+        "10 Tips for Faster Fat Reduction",
+        "CoolSculpting vs. Liposuction: What's Right for You?",
+        "UPPER lower MiXeD 2025",
+        // Accented
+        "Crème Brûlée Cravings? Managing Sugar During Your Slimming Journey",
+        "Ångström Über Café Naïve Façade",
+        "  Inch-Loss   Treatments -- Before & After (2025 Édition)  ",
+        // Punctuation only, and words glued by punctuation
+        "!!!",
+        "?! -- ...",
+        "fat.loss & inch/loss_tips",
+        // Leading / trailing separators, tabs and newlines
+        "-leading and trailing-",
+        "--- double -- hyphens ---",
+        "\ttabs\tand\nnewlines\r\n",
+        // Nothing left after normalization
+        "",
+        "   ",
+        "😀🔥",
+        "减肥 тело"
+    );
+
+    private final SlugGenerator slugGenerator = new SlugGenerator();
+
+    @Test
+    void matchesTheLegacyRegexImplementation() {
+        for (String title : TITLES) {
+            assertEquals(SlugGeneratorBenchmark.legacySlug(title), slugGenerator.generateSlug(title),
+                () -> "Slug mismatch for '" + title + "'");
+        }
+    }
+
+    @Test
+    void producesLowercaseHyphenatedWords() {
+        assertEquals("creme-brulee-cravings", slugGenerator.generateSlug("Crème Brûlée Cravings?"));
+        assertEquals("inch-loss-treatments", slugGenerator.generateSlug("  Inch-Loss --  Treatments  "));
+        assertEquals("", slugGenerator.generateSlug("!!!"));
+        assertEquals("", slugGenerator.generateSlug(null));
+    }
+}
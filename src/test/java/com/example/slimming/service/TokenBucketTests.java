@@ -0,0 +1,58 @@
+package com.example.slimming.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Refill and rate changes against a manual clock.
+ */
+class TokenBucketTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void startsWithOneSecondOfTokensAndRefillsUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(2, 5, now::get);
+
+        assertTrue(bucket.tryAcquire(2));
+        assertFalse(bucket.tryAcquire(1));
+
+        now.addAndGet(SECOND / 2);
+        assertTrue(bucket.tryAcquire(1));
+        assertFalse(bucket.tryAcquire(1));
+
+        // An idle bucket fills to its capacity, never beyond
+        now.addAndGet(60 * SECOND);
+        assertTrue(bucket.tryAcquire(5));
+        assertFalse(bucket.tryAcquire(1));
+    }
+
+    @Test
+    void setRateKeepsEarnedTokensAndRefillsAtTheNewRate() {
+        TokenBucket bucket = new TokenBucket(4, 4, now::get);
+        assertTrue(bucket.tryAcquire(4));
+
+        // Half a second at the old rate earns 2 tokens before the rate drops
+        now.addAndGet(SECOND / 2);
+        bucket.setRate(1);
+        assertEquals(1, bucket.getRate());
+        now.addAndGet(SECOND);
+        assertTrue(bucket.tryAcquire(3));
+        assertFalse(bucket.tryAcquire(1));
+    }
+
+    @Test
+    void nonPositiveRateIsUnlimited() {
+        TokenBucket bucket = new TokenBucket(0, 1, now::get);
+
+        assertTrue(bucket.tryAcquire(1000));
+        assertTrue(bucket.tryAcquire(1000));
+    }
+}